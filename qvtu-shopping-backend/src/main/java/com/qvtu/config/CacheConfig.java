@@ -0,0 +1,65 @@
+package com.qvtu.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 缓存配置
+ * 使用Caffeine作为Spring Cache实现，容量和过期时间由 app.cache.spec 配置；
+ * 失效推迟到事务提交后执行，避免并发读取在提交前把旧数据重新放回缓存；
+ * 读穿写入立即执行，推迟到读取事务提交时写入会覆盖期间已提交的失效。
+ * 命中率通过 cache.gets{result=hit|miss} 指标暴露
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String CUSTOMERS = "customers";
+    public static final String CUSTOMERS_BY_EMAIL = "customersByEmail";
+    public static final String CUSTOMERS_BY_USER_ID = "customersByUserId";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_HANDLES = "productHandles";
+    
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.spec}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheSpecification(spec);
+        // 预先声明缓存名称，启动时即可注册指标，且不会按未知名称动态创建缓存
+        cacheManager.setCacheNames(List.of(CUSTOMERS, CUSTOMERS_BY_EMAIL, CUSTOMERS_BY_USER_ID, USERS_BY_EMAIL,
+                PRODUCTS, PRODUCT_HANDLES));
+        return new TransactionAwareCacheManagerProxy(cacheManager) {
+            @Override
+            public Cache getCache(String name) {
+                Cache cache = super.getCache(name);
+                return cache instanceof TransactionAwareCacheDecorator decorator
+                        ? new DeferredEvictionCache(decorator.getTargetCache())
+                        : cache;
+            }
+        };
+    }
+    
+    /**
+     * 只推迟失效和清空的事务感知缓存
+     */
+    static class DeferredEvictionCache extends TransactionAwareCacheDecorator {
+        
+        DeferredEvictionCache(Cache targetCache) {
+            super(targetCache);
+        }
+        
+        @Override
+        public void put(Object key, Object value) {
+            getTargetCache().put(key, value);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.qvtu.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用定时任务，用于令牌撤销列表同步等后台维护工作
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,13 +3,18 @@ package com.qvtu.controller;
 import com.qvtu.dto.ApiResponse;
 import com.qvtu.dto.auth.AuthResponse;
 import com.qvtu.dto.auth.LoginRequest;
+import com.qvtu.dto.auth.LogoutRequest;
+import com.qvtu.dto.auth.RefreshTokenRequest;
 import com.qvtu.dto.auth.RegisterRequest;
+import com.qvtu.service.RefreshTokenService;
 import com.qvtu.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,6 +24,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
     
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
     
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest loginRequest) {
@@ -45,4 +51,35 @@ public class AuthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    @PostMapping("/token/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse authResponse = refreshTokenService.refresh(request.getRefreshToken());
+        
+        ApiResponse<AuthResponse> response = ApiResponse.<AuthResponse>builder()
+                .success(true)
+                .message("Token refreshed")
+                .data(authResponse)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @DeleteMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) LogoutRequest logoutRequest) {
+        String accessToken = authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                ? authorizationHeader.substring(7) : null;
+        String refreshToken = logoutRequest != null ? logoutRequest.getRefreshToken() : null;
+        
+        refreshTokenService.logout(accessToken, refreshToken);
+        
+        ApiResponse<Void> response = ApiResponse.<Void>builder()
+                .success(true)
+                .message("Logout successful")
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
 } 
\ No newline at end of file
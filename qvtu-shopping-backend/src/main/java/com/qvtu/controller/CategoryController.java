@@ -0,0 +1,83 @@
+package com.qvtu.controller;
+
+import com.qvtu.dto.CategoryDTO;
+import com.qvtu.dto.MedusaResponse;
+import com.qvtu.service.CategoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("")
+@RequiredArgsConstructor
+@Tag(name = "分类管理", description = "产品分类相关的API")
+public class CategoryController {
+    
+    private final CategoryService categoryService;
+    
+    // ========== 商店API ==========
+    
+    @GetMapping("/store/categories")
+    @Operation(summary = "获取分类树", description = "获取完整的分类树，子分类按rank排序")
+    public ResponseEntity<MedusaResponse<List<CategoryDTO>>> getCategories() {
+        List<CategoryDTO> categories = categoryService.getTree();
+        
+        MedusaResponse<List<CategoryDTO>> response = MedusaResponse.<List<CategoryDTO>>builder()
+                .product_categories(categories)
+                .count(categories.size())
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/categories/{id}")
+    @Operation(summary = "获取分类详情", description = "获取分类及其全部子分类")
+    public ResponseEntity<MedusaResponse<CategoryDTO>> getCategory(@PathVariable Long id) {
+        MedusaResponse<CategoryDTO> response = MedusaResponse.<CategoryDTO>builder()
+                .product_category(categoryService.findById(id))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // ========== 管理员API ==========
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/categories")
+    @Operation(summary = "创建分类", description = "管理员创建分类")
+    public ResponseEntity<MedusaResponse<CategoryDTO>> createCategory(@RequestBody CategoryDTO categoryDTO) {
+        MedusaResponse<CategoryDTO> response = MedusaResponse.<CategoryDTO>builder()
+                .product_category(categoryService.createCategory(categoryDTO))
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/admin/categories/{id}")
+    @Operation(summary = "更新分类", description = "管理员更新分类名称、handle、排序或父分类")
+    public ResponseEntity<MedusaResponse<CategoryDTO>> updateCategory(
+            @PathVariable Long id,
+            @RequestBody CategoryDTO categoryDTO) {
+        
+        MedusaResponse<CategoryDTO> response = MedusaResponse.<CategoryDTO>builder()
+                .product_category(categoryService.updateCategory(id, categoryDTO))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/admin/categories/{id}")
+    @Operation(summary = "删除分类", description = "管理员删除没有子分类的分类")
+    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+        categoryService.deleteCategory(id);
+        return ResponseEntity.status(HttpStatus.OK).build();
+    }
+}
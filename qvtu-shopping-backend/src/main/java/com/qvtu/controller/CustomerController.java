@@ -1,19 +1,28 @@
 package com.qvtu.controller;
 
 import com.qvtu.dto.*;
+import com.qvtu.service.CustomerImportService;
 import com.qvtu.service.CustomerService;
 import com.qvtu.service.UserService;
+import com.qvtu.util.CursorCodec;
+import com.qvtu.util.OffsetPageRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.UUID;
@@ -24,6 +33,7 @@ import java.util.UUID;
 public class CustomerController {
     
     private final CustomerService customerService;
+    private final CustomerImportService customerImportService;
     
     // ========== 管理员API ==========
     
@@ -35,17 +45,30 @@ public class CustomerController {
             @RequestParam(defaultValue = "0") Integer offset,
             @RequestParam(defaultValue = "10") Integer limit,
             @RequestParam(required = false) List<String> expand,
-            @RequestParam(required = false) List<String> fields) {
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "include_count", defaultValue = "false") boolean includeCount) {
         
-        Pageable pageable = PageRequest.of(offset / limit, limit);
+        Set<String> fieldSet = fields != null ? new HashSet<>(fields) : null;
+        Set<String> expandSet = expand != null ? new HashSet<>(expand) : null;
         
-        Page<CustomerDTO> customersPage;
-        if (q != null && !q.isEmpty()) {
-            customersPage = customerService.search(q, pageable);
-        } else {
-            customersPage = customerService.findAll(pageable);
+        // 传入cursor参数（第一页传空值）时使用游标分页，不执行count，数量仅在include_count时返回近似值
+        if (cursor != null) {
+            Window<CustomerDTO> window = customerService.scrollCustomers(q, fieldSet, expandSet, cursor, limit);
+            MedusaResponse<List<CustomerDTO>> response = MedusaResponse.<List<CustomerDTO>>builder()
+                    .customers(window.getContent())
+                    .count(includeCount ? (int) customerService.countCustomers(q) : null)
+                    .limit(limit)
+                    .next_cursor(window.hasNext() ? CursorCodec.encode(window.positionAt(window.size() - 1)) : null)
+                    .build();
+            return ResponseEntity.ok(response);
         }
         
+        Pageable pageable = new OffsetPageRequest(offset, limit);
+        
+        // 只查询请求的字段，地址和群组仅在expand中指定时才加载
+        Page<CustomerDTO> customersPage = customerService.findCustomers(q, fieldSet, expandSet, pageable);
+        
         MedusaResponse<List<CustomerDTO>> response = MedusaResponse.<List<CustomerDTO>>builder()
                 .customers(customersPage.getContent())
                 .count((int) customersPage.getTotalElements())
@@ -56,6 +79,27 @@ public class CustomerController {
         return ResponseEntity.ok(response);
     }
     
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/admin/customers/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "批量导入客户", description = "管理员以CSV或NDJSON流式批量导入客户，返回吞吐量和逐行错误")
+    public ResponseEntity<ApiResponse<CustomerImportResult>> importCustomers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        
+        CustomerImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? CustomerImportService.Format.NDJSON
+                : CustomerImportService.Format.CSV;
+        CustomerImportResult result = customerImportService.importCustomers(body, format);
+        
+        ApiResponse<CustomerImportResult> response = ApiResponse.<CustomerImportResult>builder()
+                .success(result.getFailed() == 0)
+                .message(String.format("Imported %d of %d customers", result.getImported(), result.getTotal()))
+                .data(result)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/admin/customers")
     @Operation(summary = "创建客户", description = "管理员创建新客户")
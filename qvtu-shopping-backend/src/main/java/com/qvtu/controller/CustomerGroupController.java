@@ -0,0 +1,69 @@
+package com.qvtu.controller;
+
+import com.qvtu.dto.ApiResponse;
+import com.qvtu.dto.CustomerDTO;
+import com.qvtu.dto.CustomerGroupMembersRequest;
+import com.qvtu.dto.CustomerGroupMembersResult;
+import com.qvtu.dto.MedusaResponse;
+import com.qvtu.service.CustomerGroupService;
+import com.qvtu.service.CustomerService;
+import com.qvtu.util.OffsetPageRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("")
+@RequiredArgsConstructor
+@Tag(name = "客户群组管理", description = "客户群组成员相关的API")
+public class CustomerGroupController {
+    
+    private final CustomerGroupService customerGroupService;
+    private final CustomerService customerService;
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/customer-groups/{id}/customers")
+    @Operation(summary = "获取群组成员", description = "管理员分页获取客户群组的成员")
+    public ResponseEntity<MedusaResponse<List<CustomerDTO>>> getGroupCustomers(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Page<CustomerDTO> customersPage = customerService.findByGroupId(id,
+                new OffsetPageRequest(offset, limit, Sort.by("id")));
+        
+        MedusaResponse<List<CustomerDTO>> response = MedusaResponse.<List<CustomerDTO>>builder()
+                .customers(customersPage.getContent())
+                .count((int) customersPage.getTotalElements())
+                .offset(offset)
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/customer-groups/{id}/customers")
+    @Operation(summary = "批量变更群组成员", description = "管理员批量将客户加入或移出客户群组")
+    public ResponseEntity<ApiResponse<CustomerGroupMembersResult>> updateGroupCustomers(
+            @PathVariable Long id,
+            @RequestBody CustomerGroupMembersRequest request) {
+        
+        CustomerGroupMembersResult result = customerGroupService.updateMembers(id, request.getAdd(), request.getRemove());
+        
+        ApiResponse<CustomerGroupMembersResult> response = ApiResponse.<CustomerGroupMembersResult>builder()
+                .success(true)
+                .message("Customer group members updated successfully")
+                .data(result)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+}
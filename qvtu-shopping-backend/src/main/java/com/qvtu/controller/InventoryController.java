@@ -0,0 +1,149 @@
+package com.qvtu.controller;
+
+import com.qvtu.dto.ApiResponse;
+import com.qvtu.dto.FlashSaleReservationRequest;
+import com.qvtu.dto.InventoryTotalsDTO;
+import com.qvtu.dto.MedusaResponse;
+import com.qvtu.dto.ReservationDTO;
+import com.qvtu.dto.ReservationRequest;
+import com.qvtu.dto.StockAdjustmentResult;
+import com.qvtu.service.FlashSaleService;
+import com.qvtu.service.InventoryProjectionService;
+import com.qvtu.service.ReservationService;
+import com.qvtu.service.StockAdjustmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("")
+@RequiredArgsConstructor
+@Tag(name = "库存管理", description = "库存预留和调整相关的API")
+public class InventoryController {
+    
+    private final ReservationService reservationService;
+    private final FlashSaleService flashSaleService;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final InventoryProjectionService inventoryProjectionService;
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/reservations")
+    @Operation(summary = "批量预留库存", description = "原子地预留一批库存项，按分配策略选择地点，任一项不足时整体失败并返回409")
+    public ResponseEntity<MedusaResponse<List<ReservationDTO>>> createReservations(
+            @RequestBody @Valid ReservationRequest request) {
+        
+        List<ReservationDTO> reservations = reservationService.reserve(request.getItems());
+        
+        MedusaResponse<List<ReservationDTO>> response = MedusaResponse.<List<ReservationDTO>>builder()
+                .reservations(reservations)
+                .count(reservations.size())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/admin/inventory-items/adjustments", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "批量调整库存", description = "以CSV或NDJSON流式提交 sku、location_id、delta，用于采购入库和盘点，返回吞吐量和逐行错误")
+    public ResponseEntity<ApiResponse<StockAdjustmentResult>> adjustStock(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        
+        StockAdjustmentService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? StockAdjustmentService.Format.NDJSON
+                : StockAdjustmentService.Format.CSV;
+        StockAdjustmentResult result = stockAdjustmentService.adjust(body, format);
+        
+        ApiResponse<StockAdjustmentResult> response = ApiResponse.<StockAdjustmentResult>builder()
+                .success(result.getFailed() == 0)
+                .message(String.format("Applied %d of %d stock adjustments", result.getApplied(), result.getTotal()))
+                .data(result)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/inventory-items/{id}/locations/{location_id}/flash-sale")
+    @Operation(summary = "开始抢购", description = "以当前可用库存开放内存计数器，抢购期间该库存项不能通过批量预留或调整接口修改")
+    public ResponseEntity<ApiResponse<Long>> armFlashSale(
+            @PathVariable Long id,
+            @PathVariable("location_id") Long locationId) {
+        
+        long available = flashSaleService.arm(id, locationId);
+        
+        ApiResponse<Long> response = ApiResponse.<Long>builder()
+                .success(true)
+                .message(String.format("Flash sale started with %d available", available))
+                .data(available)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/admin/inventory-items/{id}/locations/{location_id}/flash-sale")
+    @Operation(summary = "结束抢购", description = "关闭内存计数器并写回剩余的预留量")
+    public ResponseEntity<Void> disarmFlashSale(
+            @PathVariable Long id,
+            @PathVariable("location_id") Long locationId) {
+        flashSaleService.disarm(id, locationId);
+        return ResponseEntity.status(HttpStatus.OK).build();
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/flash-sale/reservations")
+    @Operation(summary = "抢购预留", description = "在内存计数器中准入预留并写入预留记录，单次数量不超过 app.inventory.flash-sale.max-quantity，售罄时返回409")
+    public ResponseEntity<MedusaResponse<List<ReservationDTO>>> createFlashSaleReservation(
+            @RequestBody @Valid FlashSaleReservationRequest request) {
+        
+        ReservationDTO reservation = flashSaleService.reserve(request.getInventory_item_id(), request.getLocation_id(),
+                request.getQuantity(), request.getLine_item_id());
+        
+        MedusaResponse<List<ReservationDTO>> response = MedusaResponse.<List<ReservationDTO>>builder()
+                .reservations(List.of(reservation))
+                .count(1)
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/variants/{id}/inventory-totals")
+    @Operation(summary = "变体库存汇总", description = "由库存流水增量维护的变体在所有地点的库存数量、预留量和在途数量")
+    public ResponseEntity<MedusaResponse<List<InventoryTotalsDTO>>> getVariantTotals(@PathVariable Long id) {
+        return ResponseEntity.ok(totalsResponse(List.of(inventoryProjectionService.getVariantTotals(id))));
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/stock-locations/{id}/inventory-totals")
+    @Operation(summary = "地点库存汇总", description = "由库存流水增量维护的地点所有库存项的库存数量、预留量和在途数量")
+    public ResponseEntity<MedusaResponse<List<InventoryTotalsDTO>>> getLocationTotals(@PathVariable Long id) {
+        return ResponseEntity.ok(totalsResponse(List.of(inventoryProjectionService.getLocationTotals(id))));
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/inventory-totals/low-stock")
+    @Operation(summary = "低库存变体", description = "可售量低于 app.inventory.low-stock-threshold 的变体，按可售量从低到高排列")
+    public ResponseEntity<MedusaResponse<List<InventoryTotalsDTO>>> getLowStockVariants() {
+        return ResponseEntity.ok(totalsResponse(inventoryProjectionService.getLowStockVariants()));
+    }
+    
+    private MedusaResponse<List<InventoryTotalsDTO>> totalsResponse(List<InventoryTotalsDTO> totals) {
+        return MedusaResponse.<List<InventoryTotalsDTO>>builder()
+                .inventory_totals(totals)
+                .count(totals.size())
+                .build();
+    }
+}
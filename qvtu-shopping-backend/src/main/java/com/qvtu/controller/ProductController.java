@@ -0,0 +1,233 @@
+package com.qvtu.controller;
+
+import com.qvtu.dto.MedusaResponse;
+import com.qvtu.dto.ProductDTO;
+import com.qvtu.dto.ProductFacetQuery;
+import com.qvtu.dto.VariantAvailabilityDTO;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.service.HotProductService;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.ProductFacetService;
+import com.qvtu.service.ProductSearchService;
+import com.qvtu.service.ProductService;
+import com.qvtu.util.OffsetPageRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("")
+@RequiredArgsConstructor
+@Tag(name = "产品管理", description = "产品目录相关的API")
+public class ProductController {
+    
+    private final ProductService productService;
+    private final HotProductService hotProductService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final InventoryService inventoryService;
+    
+    // ========== 商店API ==========
+    
+    @GetMapping("/store/products")
+    @Operation(summary = "获取产品列表", description = "分页获取上架产品，可按分类（含子分类）或handle过滤")
+    public ResponseEntity<MedusaResponse<List<ProductDTO>>> getProducts(
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(name = "category_id", required = false) Long categoryId,
+            @RequestParam(required = false) String handle) {
+        
+        if (handle != null) {
+            List<ProductDTO> products = productService.findPublishedByHandle(handle)
+                    .map(List::of)
+                    .orElse(List.of());
+            MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                    .products(products)
+                    .count(products.size())
+                    .offset(0)
+                    .limit(limit)
+                    .build();
+            return ResponseEntity.ok(response);
+        }
+        
+        Page<ProductDTO> productsPage = productService.findPublished(categoryId, new OffsetPageRequest(offset, limit));
+        
+        MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                .products(productsPage.getContent())
+                .count((int) productsPage.getTotalElements())
+                .offset(offset)
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/products/facets")
+    @Operation(summary = "分面筛选产品", description = "按分类、选项值（option=选项名:选项值）、价格区间和库存筛选上架产品，同时返回各分面计数")
+    public ResponseEntity<MedusaResponse<List<ProductDTO>>> filterProducts(
+            @RequestParam(name = "category_id", required = false) Set<Long> categoryIds,
+            @RequestParam(name = "option", required = false) List<String> options,
+            @RequestParam(name = "price_min", required = false) BigDecimal priceMin,
+            @RequestParam(name = "price_max", required = false) BigDecimal priceMax,
+            @RequestParam(name = "in_stock", required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Map<String, Set<String>> optionFilters = new LinkedHashMap<>();
+        if (options != null) {
+            for (String option : options) {
+                int separator = option.indexOf(':');
+                if (separator <= 0) {
+                    throw new BadRequestException("Invalid option filter, expected title:value: " + option);
+                }
+                optionFilters.computeIfAbsent(option.substring(0, separator), key -> new LinkedHashSet<>())
+                        .add(option.substring(separator + 1));
+            }
+        }
+        ProductFacetQuery query = ProductFacetQuery.builder()
+                .category_ids(categoryIds)
+                .options(optionFilters)
+                .price_min(priceMin)
+                .price_max(priceMax)
+                .in_stock(inStock)
+                .build();
+        
+        ProductFacetService.Result result = productFacetService.filter(query, new OffsetPageRequest(offset, limit));
+        
+        MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                .products(result.products().getContent())
+                .facets(result.facets())
+                .count((int) result.products().getTotalElements())
+                .offset(offset)
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/products/search")
+    @Operation(summary = "搜索产品", description = "按标题、handle、选项、SKU和描述全文搜索上架产品，按相关度排序")
+    public ResponseEntity<MedusaResponse<List<ProductDTO>>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Page<ProductDTO> productsPage = productSearchService.search(q, new OffsetPageRequest(offset, limit));
+        
+        MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                .products(productsPage.getContent())
+                .count((int) productsPage.getTotalElements())
+                .offset(offset)
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/products/autocomplete")
+    @Operation(summary = "产品输入联想", description = "按已输入的关键词前缀返回相关度最高的产品")
+    public ResponseEntity<MedusaResponse<List<ProductDTO>>> autocompleteProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        List<ProductDTO> products = productSearchService.autocomplete(q, limit);
+        
+        MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                .products(products)
+                .count(products.size())
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/products/hot")
+    @Operation(summary = "获取热销产品", description = "按24h、7d或30d时间窗口内的销量获取热销产品")
+    public ResponseEntity<MedusaResponse<List<ProductDTO>>> getHotProducts(
+            @RequestParam(defaultValue = "7d") String window,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        List<Long> productIds = hotProductService.getHotProductIds(HotProductService.Window.fromCode(window), limit);
+        List<ProductDTO> products = productService.findPublishedByIds(productIds);
+        
+        MedusaResponse<List<ProductDTO>> response = MedusaResponse.<List<ProductDTO>>builder()
+                .products(products)
+                .count(products.size())
+                .limit(limit)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/variants/availability")
+    @Operation(summary = "批量查询变体库存", description = "按变体ID批量获取可售数量，一次主键查询完成")
+    public ResponseEntity<MedusaResponse<List<VariantAvailabilityDTO>>> getVariantAvailability(
+            @RequestParam(name = "variant_id") Set<Long> variantIds) {
+        
+        List<VariantAvailabilityDTO> availability = inventoryService.getAvailability(variantIds);
+        
+        MedusaResponse<List<VariantAvailabilityDTO>> response = MedusaResponse.<List<VariantAvailabilityDTO>>builder()
+                .availability(availability)
+                .count(availability.size())
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/store/products/{id}")
+    @Operation(summary = "获取产品详情", description = "获取上架产品及其变体、选项、图片和分类")
+    public ResponseEntity<MedusaResponse<ProductDTO>> getProduct(@PathVariable Long id) {
+        MedusaResponse<ProductDTO> response = MedusaResponse.<ProductDTO>builder()
+                .product(productService.findPublishedById(id))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // ========== 管理员API ==========
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/products/{id}")
+    @Operation(summary = "获取产品详情(管理员)", description = "管理员获取任意状态的产品详情")
+    public ResponseEntity<MedusaResponse<ProductDTO>> getAdminProduct(@PathVariable Long id) {
+        MedusaResponse<ProductDTO> response = MedusaResponse.<ProductDTO>builder()
+                .product(productService.findById(id))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/admin/products/{id}")
+    @Operation(summary = "更新产品", description = "管理员更新产品基本信息")
+    public ResponseEntity<MedusaResponse<ProductDTO>> updateProduct(
+            @PathVariable Long id,
+            @RequestBody ProductDTO productDTO) {
+        
+        MedusaResponse<ProductDTO> response = MedusaResponse.<ProductDTO>builder()
+                .product(productService.updateProduct(id, productDTO))
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/admin/products/{id}")
+    @Operation(summary = "删除产品", description = "管理员删除产品")
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+        productService.deleteProduct(id);
+        return ResponseEntity.status(HttpStatus.OK).build();
+    }
+}
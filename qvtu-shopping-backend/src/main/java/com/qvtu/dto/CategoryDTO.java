@@ -0,0 +1,24 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDTO {
+    
+    private Long id;
+    private String name;
+    private String handle;
+    private Long parent_id;
+    private Integer rank;
+    private String description;
+    private String path; // 物化路径，从根到当前分类的ID以"/"连接，如 1/5/12
+    private List<CategoryDTO> children;
+}
@@ -26,7 +26,7 @@ public class CustomerDTO {
     private String phone;
     @JsonIgnore
     private String password; // 仅用于创建请求，不会返回
-    private boolean has_account; // 修改为下划线命名
+    private Boolean has_account; // 修改为下划线命名，列表按字段投影时未选择则为null
     
     // 地址相关
     private Long billing_address_id; // 修改为下划线命名
@@ -0,0 +1,16 @@
+package com.qvtu.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 群组成员批量变更请求
+ */
+@Data
+public class CustomerGroupMembersRequest {
+    // 要加入群组的客户ID
+    private List<Long> add;
+    // 要移出群组的客户ID
+    private List<Long> remove;
+}
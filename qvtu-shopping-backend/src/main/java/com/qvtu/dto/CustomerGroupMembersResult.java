@@ -0,0 +1,18 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 群组成员批量变更结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerGroupMembersResult {
+    private int added;
+    private int removed;
+}
@@ -0,0 +1,37 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量导入结果，包含吞吐量和逐行错误
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerImportResult {
+    
+    private long total;
+    private long imported;
+    private long failed;
+    private long elapsed_ms;
+    private double rows_per_second;
+    private List<RowError> errors;
+    // 错误过多时只返回前若干条
+    private boolean errors_truncated;
+    
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        // 数据行号，从1开始，不含CSV表头
+        private long row;
+        private String email;
+        private String message;
+    }
+}
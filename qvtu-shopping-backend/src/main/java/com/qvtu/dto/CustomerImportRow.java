@@ -0,0 +1,33 @@
+package com.qvtu.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 批量导入的一行客户数据，CSV列名和NDJSON字段名与属性名一致
+ * 填写了 address_1 时会同时创建一条默认收货/账单地址
+ */
+@Data
+public class CustomerImportRow {
+    
+    @NotBlank(message = "电子邮件不能为空")
+    @Email(message = "电子邮件格式不正确")
+    private String email;
+    
+    private String first_name;
+    private String last_name;
+    private String phone;
+    private String company_name;
+    
+    @Size(min = 6, message = "密码长度不能少于6个字符")
+    private String password;
+    
+    private String address_1;
+    private String address_2;
+    private String city;
+    private String province;
+    private String postal_code;
+    private String country_code;
+}
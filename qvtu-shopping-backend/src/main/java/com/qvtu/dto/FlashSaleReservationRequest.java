@@ -0,0 +1,25 @@
+package com.qvtu.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 抢购预留请求，地点由参与抢购的库存级别确定
+ */
+@Data
+public class FlashSaleReservationRequest {
+    
+    @NotNull(message = "库存项ID不能为空")
+    private Long inventory_item_id;
+    
+    @NotNull(message = "库存地点ID不能为空")
+    private Long location_id;
+    
+    @NotNull(message = "预留数量不能为空")
+    @Positive(message = "预留数量必须大于0")
+    private Integer quantity;
+    
+    // 关联的订单项ID，可为空
+    private Long line_item_id;
+}
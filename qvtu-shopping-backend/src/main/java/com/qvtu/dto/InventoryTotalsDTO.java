@@ -0,0 +1,22 @@
+package com.qvtu.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryTotalsDTO {
+    
+    private Long variant_id; // 按变体汇总时有值
+    private Long location_id; // 按地点汇总时有值
+    private Integer stock_level;
+    private Integer reserved_quantity;
+    private Integer incoming_quantity;
+    private Integer available; // 库存数量减去预留量
+}
@@ -17,7 +17,16 @@ public class MedusaResponse<T> {
     private List<CustomerDTO> customers;
     private AddressDTO address;
     private List<AddressDTO> addresses;
+    private ProductDTO product;
+    private List<ProductDTO> products;
+    private ProductFacetsDTO facets;
+    private List<VariantAvailabilityDTO> availability;
+    private List<ReservationDTO> reservations;
+    private List<InventoryTotalsDTO> inventory_totals;
+    private CategoryDTO product_category;
+    private List<CategoryDTO> product_categories;
     private Integer count;
     private Integer offset;
     private Integer limit;
+    private String next_cursor; // 游标分页时下一页的游标，没有更多数据时为null
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.qvtu.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.qvtu.config.CustomLocalDateTimeSerializer;
+import com.qvtu.model.ProductStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDTO {
+    
+    private Long id;
+    private String title;
+    private String handle;
+    private String description;
+    private String thumbnail;
+    private ProductStatus status;
+    private Integer weight;
+    private Boolean is_giftcard;
+    private Boolean discountable;
+    private Map<String, Object> metadata;
+    
+    private List<ProductVariantDTO> variants;
+    private List<ProductOptionDTO> options;
+    private List<ProductImageDTO> images;
+    private List<CategoryDTO> categories;
+    
+    @JsonSerialize(using = CustomLocalDateTimeSerializer.class)
+    private LocalDateTime created_at;
+    
+    @JsonSerialize(using = CustomLocalDateTimeSerializer.class)
+    private LocalDateTime updated_at;
+    
+    @JsonSerialize(using = CustomLocalDateTimeSerializer.class)
+    private LocalDateTime deleted_at;
+}
@@ -0,0 +1,26 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分面筛选条件，同一分面内的值为或关系，不同分面之间为与关系
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetQuery {
+    
+    private Set<Long> category_ids;
+    private Map<String, Set<String>> options; // 选项名 -> 选项值
+    private BigDecimal price_min; // 按变体最低价格筛选，含边界
+    private BigDecimal price_max;
+    private Boolean in_stock;
+}
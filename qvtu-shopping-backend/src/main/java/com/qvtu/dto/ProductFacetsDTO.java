@@ -0,0 +1,23 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 分面计数，每个分面的计数应用了除该分面自身以外的全部筛选条件，只返回计数大于0的值
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+    
+    private Map<Long, Integer> categories; // 分类ID -> 产品数
+    private Map<String, Map<String, Integer>> options; // 选项名 -> 选项值 -> 产品数
+    private Map<String, Integer> prices; // 价格区间，如 "50-100"、"1000+" -> 产品数
+    private Integer in_stock; // 有货产品数
+}
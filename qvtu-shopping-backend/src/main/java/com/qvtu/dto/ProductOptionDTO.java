@@ -0,0 +1,19 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOptionDTO {
+    
+    private Long id;
+    private String title;
+    private List<ProductOptionValueDTO> values;
+}
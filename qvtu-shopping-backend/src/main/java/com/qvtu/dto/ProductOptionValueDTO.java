@@ -0,0 +1,18 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductOptionValueDTO {
+    
+    private Long id;
+    private String value;
+    private Long option_id;
+    private Long variant_id;
+}
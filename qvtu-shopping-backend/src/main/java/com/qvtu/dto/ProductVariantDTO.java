@@ -0,0 +1,39 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductVariantDTO {
+    
+    private Long id;
+    private String title;
+    private String sku;
+    private String barcode;
+    private String ean;
+    private String upc;
+    private BigDecimal price;
+    private BigDecimal compare_at_price;
+    private Integer inventory_quantity;
+    private Boolean allow_backorder;
+    private Boolean manage_inventory;
+    private Double weight;
+    private Double length;
+    private Double height;
+    private Double width;
+    private String origin_country;
+    private String material;
+    private Map<String, Object> metadata;
+    
+    // 变体对应的选项值
+    private List<ProductOptionValueDTO> options;
+}
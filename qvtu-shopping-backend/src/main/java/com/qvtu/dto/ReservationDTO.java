@@ -0,0 +1,25 @@
+package com.qvtu.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.qvtu.config.CustomLocalDateTimeSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+    
+    private Long id;
+    private Long inventory_item_id;
+    private Long location_id;
+    private Integer quantity;
+    private Long line_item_id;
+    @JsonSerialize(using = CustomLocalDateTimeSerializer.class)
+    private LocalDateTime expires_at;
+}
@@ -0,0 +1,34 @@
+package com.qvtu.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量预留请求，所有行要么全部预留成功，要么全部不预留
+ */
+@Data
+public class ReservationRequest {
+    
+    @NotEmpty(message = "预留项不能为空")
+    @Valid
+    private List<Item> items;
+    
+    @Data
+    public static class Item {
+        
+        @NotNull(message = "库存项ID不能为空")
+        private Long inventory_item_id;
+        
+        @NotNull(message = "预留数量不能为空")
+        @Positive(message = "预留数量必须大于0")
+        private Integer quantity;
+        
+        // 关联的订单项ID，可为空
+        private Long line_item_id;
+    }
+}
@@ -0,0 +1,38 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量库存调整结果，包含吞吐量和逐行错误，未出现在错误中的行均已生效
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResult {
+    
+    private long total;
+    private long applied;
+    private long failed;
+    private long elapsed_ms;
+    private double rows_per_second;
+    private List<RowError> errors;
+    // 错误过多时只返回前若干条
+    private boolean errors_truncated;
+    
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        // 数据行号，从1开始，不含CSV表头
+        private long row;
+        private String sku;
+        private Long location_id;
+        private String message;
+    }
+}
@@ -0,0 +1,22 @@
+package com.qvtu.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 批量库存调整的一行，CSV列名和NDJSON字段名与属性名一致
+ * 入库时 delta 为正数，盘亏或出库时为负数
+ */
+@Data
+public class StockAdjustmentRow {
+    
+    @NotBlank(message = "SKU不能为空")
+    private String sku;
+    
+    @NotNull(message = "库存地点ID不能为空")
+    private Long location_id;
+    
+    @NotNull(message = "调整数量不能为空")
+    private Integer delta;
+}
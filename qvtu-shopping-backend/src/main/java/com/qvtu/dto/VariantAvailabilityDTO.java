@@ -0,0 +1,19 @@
+package com.qvtu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantAvailabilityDTO {
+    
+    private Long variant_id;
+    private Integer inventory_quantity; // 各地点库存减去预留量之和
+    private Boolean allow_backorder;
+    private Boolean manage_inventory;
+    private Boolean in_stock;
+}
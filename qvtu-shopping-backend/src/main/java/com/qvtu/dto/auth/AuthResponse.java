@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
     
     private String token;
+    private String refreshToken;
     private UserDTO user;
     private String message;
 } 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.qvtu.dto.auth;
+
+import lombok.Data;
+
+@Data
+public class LogoutRequest {
+    
+    private String refreshToken;
+} 
@@ -0,0 +1,9 @@
+package com.qvtu.event;
+
+/**
+ * 分类发生变更
+ * 在写事务中发布，监听方在事务提交后刷新分类树等派生数据
+ * @param categoryId 分类ID
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,9 @@
+package com.qvtu.event;
+
+/**
+ * 产品或其变体、选项、图片发生变更
+ * 在写事务中发布，监听方在事务提交后刷新缓存等派生数据
+ * @param productId 产品ID
+ */
+public record ProductChangedEvent(Long productId) {
+}
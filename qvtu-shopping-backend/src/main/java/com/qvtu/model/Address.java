@@ -15,7 +15,7 @@ import java.util.Map;
 
 @Data
 @Entity
-@Table(name = "addresses")
+@Table(name = "addresses", indexes = @Index(name = "idx_addresses_customer_id", columnList = "customer_id"))
 public class Address {
 
     @Id
@@ -61,7 +61,9 @@ public class Customer extends User {
     @JoinTable(
         name = "customer_customer_group",
         joinColumns = @JoinColumn(name = "customer_id"),
-        inverseJoinColumns = @JoinColumn(name = "customer_group_id")
+        inverseJoinColumns = @JoinColumn(name = "customer_group_id"),
+        // 主键以customer_id开头，按群组查成员需要反向索引
+        indexes = @Index(name = "idx_customer_group_members", columnList = "customer_group_id, customer_id")
     )
     private Set<CustomerGroup> groups = new HashSet<>();
 
@@ -3,10 +3,14 @@ package com.qvtu.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Data
@@ -21,8 +25,10 @@ public class CustomerGroup {
     @Column(nullable = false)
     private String name;
 
+    // 以JSON类型映射，读取时由Hibernate解析一次，映射DTO时不再重复解析
     @Column(name = "metadata", columnDefinition = "jsonb")
-    private String metadata;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> metadata = new HashMap<>();
 
     @ManyToMany(mappedBy = "groups")
     private Set<Customer> customers = new HashSet<>();
@@ -35,6 +35,10 @@ public class InventoryLevel {
     @Column(name = "incoming_quantity", nullable = false)
     private Integer incomingQuantity = 0;
     
+    // 参与抢购期间为true，数据库路径的预留和调整在锁定库存级别后检查此标记
+    @Column(name = "flash_sale", nullable = false, columnDefinition = "boolean default false")
+    private Boolean flashSale = false;
+    
     @Column(name = "metadata", columnDefinition = "jsonb")
     private String metadata;
     
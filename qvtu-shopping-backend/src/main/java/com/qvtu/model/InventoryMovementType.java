@@ -0,0 +1,9 @@
+package com.qvtu.model;
+
+public enum InventoryMovementType {
+    RECEIVE,    // 入库，增加库存数量
+    RESERVE,    // 预留，增加预留量
+    RELEASE,    // 释放预留，减少预留量
+    SHIP,       // 发货，扣减库存数量
+    ADJUST      // 盘点调整或按预留记录对账
+}
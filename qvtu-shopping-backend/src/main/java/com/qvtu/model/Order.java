@@ -12,7 +12,10 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_created_id", columnList = "customer_id, created_at, id"),
+        @Index(name = "idx_orders_status_created_id", columnList = "status, created_at, id")
+})
 public class Order {
     
     @Id
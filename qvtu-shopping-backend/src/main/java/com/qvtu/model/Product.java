@@ -2,16 +2,21 @@ package com.qvtu.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_status_created", columnList = "status, created_at, id"))
 public class Product {
     
     @Id
@@ -30,20 +35,30 @@ public class Product {
     @Column(name = "thumbnail")
     private String thumbnail;
     
+    // 目录查询一次加载一页产品，子集合按批初始化，避免逐个产品查询
+    @BatchSize(size = 100)
+    @OrderBy("id")
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductVariant> variants = new ArrayList<>();
     
+    @BatchSize(size = 100)
+    @OrderBy("id")
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductOption> options = new ArrayList<>();
     
+    @BatchSize(size = 100)
+    @OrderBy("id")
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductImage> images = new ArrayList<>();
     
+    @BatchSize(size = 100)
     @ManyToMany
     @JoinTable(
         name = "product_categories",
         joinColumns = @JoinColumn(name = "product_id"),
-        inverseJoinColumns = @JoinColumn(name = "category_id")
+        inverseJoinColumns = @JoinColumn(name = "category_id"),
+        // 按分类及其子分类查产品时从分类一侧进入
+        indexes = @Index(name = "idx_product_categories_category", columnList = "category_id, product_id")
     )
     private List<Category> categories = new ArrayList<>();
     
@@ -64,7 +79,8 @@ public class Product {
     private Boolean discountable = true;
     
     @Column(name = "metadata", columnDefinition = "jsonb")
-    private String metadata;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> metadata = new HashMap<>();
     
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
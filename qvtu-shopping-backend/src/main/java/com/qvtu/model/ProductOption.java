@@ -2,6 +2,7 @@ package com.qvtu.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -25,6 +26,8 @@ public class ProductOption {
     @JoinColumn(name = "product_id")
     private Product product;
     
+    @BatchSize(size = 100)
+    @OrderBy("id")
     @OneToMany(mappedBy = "option", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductOptionValue> values = new ArrayList<>();
     
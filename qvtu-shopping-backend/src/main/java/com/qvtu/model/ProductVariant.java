@@ -2,17 +2,22 @@ package com.qvtu.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Entity
-@Table(name = "product_variants")
+@Table(name = "product_variants", indexes = @Index(name = "idx_product_variants_product", columnList = "product_id"))
 public class ProductVariant {
     
     @Id
@@ -44,9 +49,12 @@ public class ProductVariant {
     @JoinColumn(name = "product_id")
     private Product product;
     
+    @BatchSize(size = 100)
+    @OrderBy("id")
     @OneToMany(mappedBy = "variant", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductOptionValue> optionValues = new ArrayList<>();
     
+    // 可售数量：各地点库存减去预留量之和，由InventoryService在库存或预留变化时同一事务内维护
     @Column(name = "inventory_quantity", nullable = false)
     private Integer inventoryQuantity = 0;
     
@@ -78,7 +86,8 @@ public class ProductVariant {
     private String material;
     
     @Column(name = "metadata", columnDefinition = "jsonb")
-    private String metadata;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> metadata = new HashMap<>();
     
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
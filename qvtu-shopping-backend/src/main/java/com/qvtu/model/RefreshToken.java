@@ -0,0 +1,50 @@
+package com.qvtu.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id")
+})
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    // 只保存令牌的SHA-256摘要，不保存明文
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+    
+    // 同一次登录轮换产生的令牌属于同一家族，检测到重放时整族撤销
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+    
+    // 签发时用户的令牌版本，用户改密或变更角色后旧刷新令牌失效
+    @Column(name = "token_version", nullable = false)
+    private Long tokenVersion;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Transient
+    public boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+} 
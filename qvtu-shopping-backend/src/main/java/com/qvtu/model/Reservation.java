@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_item_location", columnList = "inventory_item_id, location_id"))
 public class Reservation {
     
     @Id
@@ -31,6 +31,10 @@ public class Reservation {
     @JoinColumn(name = "line_item_id")
     private OrderItem orderItem;
     
+    // 到期后由定时任务释放预留量，为null时不过期
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+    
     @Column(name = "metadata", columnDefinition = "jsonb")
     private String metadata;
     
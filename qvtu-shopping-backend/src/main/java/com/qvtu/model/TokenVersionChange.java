@@ -0,0 +1,32 @@
+package com.qvtu.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "token_version_changes", indexes = @Index(name = "idx_token_version_changes_expires_at", columnList = "expires_at"))
+public class TokenVersionChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    // 变更后的令牌版本，低于此版本的令牌需要回库校验
+    @Column(name = "token_version", nullable = false)
+    private Long tokenVersion;
+    
+    // 变更前签发的访问令牌全部过期的时间，之后记录可以清理
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
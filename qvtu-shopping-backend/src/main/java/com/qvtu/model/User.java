@@ -3,6 +3,7 @@ package com.qvtu.model;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.Type;
 import org.hibernate.type.SqlTypes;
@@ -17,7 +18,7 @@ import java.util.HashMap;
 
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_created_id", columnList = "created_at, id"))
 @Inheritance(strategy = InheritanceType.JOINED)
 public class User {
 
@@ -43,6 +44,8 @@ public class User {
     @Column(name = "avatar_url")
     private String avatarUrl;
 
+    // 分页查询时按批加载角色，避免逐行查询
+    @BatchSize(size = 100)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
@@ -51,6 +54,10 @@ public class User {
     @Column(name = "is_active", nullable = false)
     private boolean isActive = true;
 
+    // 令牌版本号，角色、密码或状态变化时递增，使旧令牌失效
+    @Column(name = "token_version", nullable = false, columnDefinition = "bigint default 0")
+    private Long tokenVersion = 0L;
+
     @Column(name = "metadata", columnDefinition = "jsonb")
     @JdbcTypeCode(SqlTypes.JSON)
     private Map<String, Object> metadata = new HashMap<>();
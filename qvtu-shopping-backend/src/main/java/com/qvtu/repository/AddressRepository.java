@@ -2,6 +2,9 @@ package com.qvtu.repository;
 
 import com.qvtu.model.Address;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -37,4 +40,19 @@ public interface AddressRepository extends JpaRepository<Address, Long> {
      * @return 同时是默认配送和默认账单的地址
      */
     Optional<Address> findByCustomerIdAndDefaultShippingTrueAndDefaultBillingTrue(Long customerId);
+    
+    /**
+     * 将指定地址设为客户的默认配送和账单地址，并取消其他地址的默认标记
+     * 只更新当前为默认的地址和目标地址，地址再多也只改动这几行
+     * @param customerId 客户ID
+     * @param addressId 新的默认地址ID
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Address a SET "
+            + "a.defaultShipping = CASE WHEN a.id = :addressId THEN true ELSE false END, "
+            + "a.defaultBilling = CASE WHEN a.id = :addressId THEN true ELSE false END "
+            + "WHERE a.customer.id = :customerId "
+            + "AND (a.id = :addressId OR a.defaultShipping = true OR a.defaultBilling = true)")
+    int switchDefaultAddress(@Param("customerId") Long customerId, @Param("addressId") Long addressId);
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.qvtu.repository;
 import com.qvtu.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -44,4 +45,26 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     @Query("SELECT c FROM Category c LEFT JOIN FETCH c.children WHERE c.parent IS NULL")
     List<Category> findCategoryTree();
+    
+    /**
+     * 一次查询全部未删除的分类及其父分类，用于构建内存分类树
+     * @return 分类列表
+     */
+    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.parent WHERE c.deletedAt IS NULL")
+    List<Category> findAllActive();
+    
+    /**
+     * 根据handle查询分类ID
+     * @param handle 分类handle
+     * @return 分类ID
+     */
+    @Query("SELECT c.id FROM Category c WHERE c.handle = :handle")
+    Optional<Long> findIdByHandle(@Param("handle") String handle);
+    
+    /**
+     * 检查是否存在未删除的子分类
+     * @param parentId 父分类ID
+     * @return 是否存在
+     */
+    boolean existsByParentIdAndDeletedAtIsNull(Long parentId);
 } 
\ No newline at end of file
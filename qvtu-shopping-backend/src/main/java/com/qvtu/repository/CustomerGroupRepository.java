@@ -5,6 +5,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CustomerGroupRepository extends JpaRepository<CustomerGroup, Long> {
-    // You can add custom query methods here as needed
-} 
\ No newline at end of file
+public interface CustomerGroupRepository extends JpaRepository<CustomerGroup, Long>, CustomerGroupRepositoryCustom {
+}
@@ -0,0 +1,25 @@
+package com.qvtu.repository;
+
+import java.util.Collection;
+
+/**
+ * 客户群组成员批量维护，每次增删都是一条基于集合的SQL语句，不加载群组或客户实体
+ */
+public interface CustomerGroupRepositoryCustom {
+    
+    /**
+     * 将客户批量加入群组，已是成员或不存在的客户会被跳过
+     * @param groupId 群组ID
+     * @param customerIds 客户ID集合
+     * @return 新加入的成员数
+     */
+    int addCustomers(Long groupId, Collection<Long> customerIds);
+    
+    /**
+     * 将客户批量移出群组
+     * @param groupId 群组ID
+     * @param customerIds 客户ID集合
+     * @return 移出的成员数
+     */
+    int removeCustomers(Long groupId, Collection<Long> customerIds);
+}
@@ -0,0 +1,43 @@
+package com.qvtu.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class CustomerGroupRepositoryImpl implements CustomerGroupRepositoryCustom {
+    
+    // 客户ID以数组参数传入，参数个数不随成员数增长
+    private static final String INSERT_MEMBERS =
+            "INSERT INTO customer_customer_group (customer_id, customer_group_id) "
+                    + "SELECT c.id, ? FROM customers c WHERE c.id = ANY (?) "
+                    + "ON CONFLICT DO NOTHING";
+    
+    private static final String DELETE_MEMBERS =
+            "DELETE FROM customer_customer_group WHERE customer_group_id = ? AND customer_id = ANY (?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public int addCustomers(Long groupId, Collection<Long> customerIds) {
+        return execute(INSERT_MEMBERS, groupId, customerIds);
+    }
+    
+    @Override
+    public int removeCustomers(Long groupId, Collection<Long> customerIds) {
+        return execute(DELETE_MEMBERS, groupId, customerIds);
+    }
+    
+    private int execute(String sql, Long groupId, Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(sql, ps -> {
+            Array ids = ps.getConnection().createArrayOf("bigint", customerIds.toArray());
+            ps.setLong(1, groupId);
+            ps.setArray(2, ids);
+        });
+    }
+}
@@ -3,13 +3,19 @@ package com.qvtu.repository;
 import com.qvtu.model.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
     
     /**
      * 根据电子邮件查找客户
@@ -34,15 +40,62 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
         return findById(userId);
     }
     
+    boolean existsByEmail(String email);
+    
+    /**
+     * 批量加载客户及其地址，用于分页结果一次性初始化地址集合
+     * @param ids 客户ID集合
+     * @return 客户列表
+     */
+    @EntityGraph(attributePaths = "addresses")
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids")
+    List<Customer> findWithAddressesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 批量加载客户及其群组，与地址分开查询以避免笛卡尔积
+     * @param ids 客户ID集合
+     * @return 客户列表
+     */
+    @EntityGraph(attributePaths = "groups")
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids")
+    List<Customer> findWithGroupsByIdIn(@Param("ids") Collection<Long> ids);
+    
     /**
-     * 模糊搜索客户
-     * @param query 搜索关键词
+     * 分页查询群组成员，不加载群组的成员集合
+     * @param groupId 群组ID
      * @param pageable 分页参数
      * @return 客户分页结果
      */
-    Page<Customer> findByFirstNameContainingOrLastNameContainingOrEmailContaining(
-            String firstName, String lastName, String email, Pageable pageable);
-
-    boolean existsByEmail(String email);
+    @Query(value = "SELECT c FROM Customer c JOIN c.groups g WHERE g.id = :groupId",
+            countQuery = "SELECT count(c) FROM Customer c JOIN c.groups g WHERE g.id = :groupId")
+    Page<Customer> findByGroupId(@Param("groupId") Long groupId, Pageable pageable);
     
+    /**
+     * 设置客户的默认配送和账单地址ID
+     * 切换默认地址时先执行，锁住该客户行，同一客户的并发切换在此排队
+     * @param customerId 客户ID
+     * @param addressId 默认地址ID
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE customers SET default_shipping_address_id = :addressId, "
+            + "default_billing_address_id = :addressId WHERE id = :customerId", nativeQuery = true)
+    int updateDefaultAddressIds(@Param("customerId") Long customerId, @Param("addressId") Long addressId);
+    
+    /**
+     * 删除地址后清除客户指向该地址的默认地址ID
+     * @param customerId 客户ID
+     * @param addressId 被删除的地址ID
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE customers SET "
+            + "default_shipping_address_id = CASE WHEN default_shipping_address_id = :addressId "
+            + "THEN NULL ELSE default_shipping_address_id END, "
+            + "default_billing_address_id = CASE WHEN default_billing_address_id = :addressId "
+            + "THEN NULL ELSE default_billing_address_id END "
+            + "WHERE id = :customerId "
+            + "AND (default_shipping_address_id = :addressId OR default_billing_address_id = :addressId)",
+            nativeQuery = true)
+    int clearDefaultAddressIds(@Param("customerId") Long customerId, @Param("addressId") Long addressId);
 } 
\ No newline at end of file
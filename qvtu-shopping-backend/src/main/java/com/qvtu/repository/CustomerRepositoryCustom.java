@@ -0,0 +1,87 @@
+package com.qvtu.repository;
+
+import com.qvtu.dto.AddressDTO;
+import com.qvtu.dto.CustomerDTO;
+import com.qvtu.model.CustomerGroup;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 客户列表投影查询，只查询请求的列，不加载客户实体及其关联集合
+ */
+public interface CustomerRepositoryCustom {
+    
+    /**
+     * 支持投影的客户字段（CustomerDTO中的字段名）
+     */
+    Set<String> PROJECTABLE_FIELDS = Set.of(
+            "id", "email", "first_name", "last_name", "phone", "has_account", "company_name",
+            "avatar_url", "billing_address_id", "shipping_address_id", "metadata",
+            "created_at", "updated_at", "deleted_at");
+    
+    /**
+     * 搜索文档的数据库函数名，与 db/customer-search.sql 中的三元组索引表达式一致
+     */
+    String SEARCH_DOCUMENT_FUNCTION = "customer_search_document";
+    
+    /**
+     * 将搜索关键词转换为子串匹配模式，转义LIKE通配符
+     * @param query 搜索关键词
+     * @return 小写的 %query% 模式
+     */
+    static String searchPattern(String query) {
+        String escaped = query.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+    
+    /**
+     * 分页查询客户，只选择指定字段
+     * @param query 搜索关键词，为空时查询全部
+     * @param fields 需要返回的字段，id始终返回
+     * @param pageable 分页参数
+     * @return 仅填充了指定字段的客户DTO分页结果
+     */
+    Page<CustomerDTO> findCustomerRows(String query, Set<String> fields, Pageable pageable);
+    
+    /**
+     * 按 (created_at, id) 倒序游标翻页查询客户，只选择指定字段，不执行count
+     * @param query 搜索关键词，为空时查询全部
+     * @param fields 需要返回的字段，id和created_at始终返回
+     * @param position 上一页最后一行的位置
+     * @param limit 每页条数
+     * @return 客户DTO窗口
+     */
+    Window<CustomerDTO> scrollCustomerRows(String query, Set<String> fields, KeysetScrollPosition position, int limit);
+    
+    /**
+     * 统计客户数量，无搜索条件时使用表统计信息估算
+     * @param query 搜索关键词，为空时估算全表行数
+     * @return 客户数量
+     */
+    long estimateCustomerCount(String query);
+    
+    /**
+     * 按客户批量查询地址投影
+     * @param customerIds 客户ID集合
+     * @return 客户ID -> 地址DTO列表
+     */
+    Map<Long, List<AddressDTO>> findAddressRowsByCustomerIds(Collection<Long> customerIds);
+    
+    /**
+     * 按客户批量查询所属群组
+     * @param customerIds 客户ID集合
+     * @return 客户ID -> 群组列表
+     */
+    Map<Long, List<CustomerGroup>> findGroupsByCustomerIds(Collection<Long> customerIds);
+}
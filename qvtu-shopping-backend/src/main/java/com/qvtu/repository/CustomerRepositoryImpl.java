@@ -0,0 +1,291 @@
+package com.qvtu.repository;
+
+import com.qvtu.dto.AddressDTO;
+import com.qvtu.dto.CustomerDTO;
+import com.qvtu.model.Address;
+import com.qvtu.model.Customer;
+import com.qvtu.model.CustomerGroup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import com.qvtu.util.CursorCodec;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+public class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+    
+    /**
+     * DTO字段名 -> 实体属性及赋值方式
+     */
+    private static final Map<String, FieldMapping> FIELD_MAPPINGS = new LinkedHashMap<>();
+    
+    static {
+        FIELD_MAPPINGS.put("id", new FieldMapping("id", (dto, value) -> dto.setId((Long) value)));
+        FIELD_MAPPINGS.put("email", new FieldMapping("email", (dto, value) -> dto.setEmail((String) value)));
+        FIELD_MAPPINGS.put("first_name", new FieldMapping("firstName", (dto, value) -> dto.setFirst_name((String) value)));
+        FIELD_MAPPINGS.put("last_name", new FieldMapping("lastName", (dto, value) -> dto.setLast_name((String) value)));
+        FIELD_MAPPINGS.put("phone", new FieldMapping("phone", (dto, value) -> dto.setPhone((String) value)));
+        FIELD_MAPPINGS.put("has_account", new FieldMapping("hasAccount", (dto, value) -> dto.setHas_account((Boolean) value)));
+        FIELD_MAPPINGS.put("company_name", new FieldMapping("companyName", (dto, value) -> dto.setCompany_name((String) value)));
+        FIELD_MAPPINGS.put("avatar_url", new FieldMapping("avatarUrl", (dto, value) -> dto.setAvatar_url((String) value)));
+        FIELD_MAPPINGS.put("billing_address_id", new FieldMapping("defaultBillingAddressId",
+                (dto, value) -> dto.setBilling_address_id((Long) value)));
+        FIELD_MAPPINGS.put("shipping_address_id", new FieldMapping("defaultShippingAddressId",
+                (dto, value) -> dto.setShipping_address_id((Long) value)));
+        FIELD_MAPPINGS.put("metadata", new FieldMapping("metadata", CustomerRepositoryImpl::setMetadata));
+        FIELD_MAPPINGS.put("created_at", new FieldMapping("createdAt", (dto, value) -> dto.setCreated_at((LocalDateTime) value)));
+        FIELD_MAPPINGS.put("updated_at", new FieldMapping("updatedAt", (dto, value) -> dto.setUpdated_at((LocalDateTime) value)));
+        FIELD_MAPPINGS.put("deleted_at", new FieldMapping("deletedAt", (dto, value) -> dto.setDeleted_at((LocalDateTime) value)));
+    }
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Page<CustomerDTO> findCustomerRows(String query, Set<String> fields, Pageable pageable) {
+        List<String> selectedFields = selectedFields(fields, false);
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Customer> root = cq.from(Customer.class);
+        cq.multiselect(selections(root, selectedFields));
+        
+        Predicate predicate = searchPredicate(cb, root, query);
+        if (predicate != null) {
+            // 有搜索词时按相关度排序
+            cq.where(predicate);
+            cq.orderBy(cb.desc(cb.function("word_similarity", Double.class,
+                            cb.literal(query.toLowerCase(Locale.ROOT)), searchDocument(cb, root))),
+                    cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+        }
+        
+        List<Tuple> tuples = entityManager.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        
+        return PageableExecutionUtils.getPage(toDtos(tuples, selectedFields), pageable, () -> countCustomers(query));
+    }
+    
+    @Override
+    public Window<CustomerDTO> scrollCustomerRows(String query, Set<String> fields, KeysetScrollPosition position,
+                                                  int limit) {
+        List<String> selectedFields = selectedFields(fields, true);
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Customer> root = cq.from(Customer.class);
+        cq.multiselect(selections(root, selectedFields));
+        
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate search = searchPredicate(cb, root, query);
+        if (search != null) {
+            predicates.add(search);
+        }
+        if (!position.isInitial()) {
+            // (created_at, id) < (:createdAt, :id)，配合 users(created_at, id) 索引，任意深度的页都只扫描一页数据；
+            // OR 条件不能作为索引扫描的起点，冗余的 created_at <= :createdAt 提供起点
+            LocalDateTime createdAt = (LocalDateTime) position.getKeys().get(CursorCodec.CREATED_AT);
+            Long id = (Long) position.getKeys().get(CursorCodec.ID);
+            predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), createdAt));
+            predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+        cq.orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+        
+        // 多取一行用于判断是否还有下一页
+        List<Tuple> tuples = entityManager.createQuery(cq)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        boolean hasNext = tuples.size() > limit;
+        List<CustomerDTO> content = toDtos(hasNext ? tuples.subList(0, limit) : tuples, selectedFields);
+        
+        return Window.from(content, index -> {
+            CustomerDTO last = content.get(index);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(CursorCodec.CREATED_AT, last.getCreated_at());
+            keys.put(CursorCodec.ID, last.getId());
+            return ScrollPosition.forward(keys);
+        }, hasNext);
+    }
+    
+    @Override
+    public long estimateCustomerCount(String query) {
+        if (query == null || query.isEmpty()) {
+            Number estimate = (Number) entityManager.createNativeQuery(
+                    "SELECT reltuples FROM pg_class WHERE oid = 'customers'::regclass")
+                    .getSingleResult();
+            // 表从未ANALYZE时reltuples为-1，退回精确计数
+            if (estimate != null && estimate.longValue() >= 0) {
+                return estimate.longValue();
+            }
+        }
+        return countCustomers(query);
+    }
+    
+    @Override
+    public Map<Long, List<AddressDTO>> findAddressRowsByCustomerIds(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Address> address = cq.from(Address.class);
+        cq.multiselect(
+                address.get("customer").get("id").alias("customerId"),
+                address.get("id").alias("id"),
+                address.get("company").alias("company"),
+                address.get("firstName").alias("firstName"),
+                address.get("lastName").alias("lastName"),
+                address.get("address1").alias("address1"),
+                address.get("address2").alias("address2"),
+                address.get("city").alias("city"),
+                address.get("countryCode").alias("countryCode"),
+                address.get("province").alias("province"),
+                address.get("postalCode").alias("postalCode"),
+                address.get("phone").alias("phone"),
+                address.get("defaultShipping").alias("defaultShipping"),
+                address.get("defaultBilling").alias("defaultBilling"),
+                address.get("metadata").alias("metadata"));
+        cq.where(address.get("customer").get("id").in(customerIds));
+        cq.orderBy(cb.asc(address.get("id")));
+        
+        Map<Long, List<AddressDTO>> result = new LinkedHashMap<>();
+        for (Tuple tuple : entityManager.createQuery(cq).getResultList()) {
+            AddressDTO dto = AddressDTO.builder()
+                    .id(tuple.get("id", Long.class))
+                    .company(tuple.get("company", String.class))
+                    .first_name(tuple.get("firstName", String.class))
+                    .last_name(tuple.get("lastName", String.class))
+                    .address_1(tuple.get("address1", String.class))
+                    .address_2(tuple.get("address2", String.class))
+                    .city(tuple.get("city", String.class))
+                    .country_code(tuple.get("countryCode", String.class))
+                    .province(tuple.get("province", String.class))
+                    .postal_code(tuple.get("postalCode", String.class))
+                    .phone(tuple.get("phone", String.class))
+                    .is_default(Boolean.TRUE.equals(tuple.get("defaultShipping"))
+                            || Boolean.TRUE.equals(tuple.get("defaultBilling")))
+                    .build();
+            setAddressMetadata(dto, tuple.get("metadata"));
+            result.computeIfAbsent(tuple.get("customerId", Long.class), id -> new ArrayList<>()).add(dto);
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<Long, List<CustomerGroup>> findGroupsByCustomerIds(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Customer> customer = cq.from(Customer.class);
+        Join<Customer, CustomerGroup> group = customer.join("groups");
+        cq.multiselect(customer.get("id").alias("customerId"), group.alias("group"));
+        cq.where(customer.get("id").in(customerIds));
+        
+        Map<Long, List<CustomerGroup>> result = new LinkedHashMap<>();
+        for (Tuple tuple : entityManager.createQuery(cq).getResultList()) {
+            result.computeIfAbsent(tuple.get("customerId", Long.class), id -> new ArrayList<>())
+                    .add(tuple.get("group", CustomerGroup.class));
+        }
+        return result;
+    }
+    
+    private List<String> selectedFields(Set<String> fields, boolean includeKeyset) {
+        List<String> selectedFields = new ArrayList<>();
+        for (String field : FIELD_MAPPINGS.keySet()) {
+            if (field.equals("id") || (includeKeyset && field.equals("created_at"))
+                    || fields == null || fields.isEmpty() || fields.contains(field)) {
+                selectedFields.add(field);
+            }
+        }
+        return selectedFields;
+    }
+    
+    private List<Selection<?>> selections(Root<Customer> root, List<String> selectedFields) {
+        List<Selection<?>> selections = new ArrayList<>(selectedFields.size());
+        for (String field : selectedFields) {
+            selections.add(root.get(FIELD_MAPPINGS.get(field).attribute()).alias(field));
+        }
+        return selections;
+    }
+    
+    private List<CustomerDTO> toDtos(List<Tuple> tuples, List<String> selectedFields) {
+        List<CustomerDTO> content = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            CustomerDTO dto = new CustomerDTO();
+            for (String field : selectedFields) {
+                FIELD_MAPPINGS.get(field).setter().accept(dto, tuple.get(field));
+            }
+            content.add(dto);
+        }
+        return content;
+    }
+    
+    private long countCustomers(String query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Customer> root = cq.from(Customer.class);
+        cq.select(cb.count(root));
+        Predicate predicate = searchPredicate(cb, root, query);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+    
+    private Predicate searchPredicate(CriteriaBuilder cb, Root<Customer> root, String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        return cb.like(searchDocument(cb, root), CustomerRepositoryCustom.searchPattern(query), '\\');
+    }
+    
+    private Expression<String> searchDocument(CriteriaBuilder cb, Root<Customer> root) {
+        return cb.function(SEARCH_DOCUMENT_FUNCTION, String.class,
+                root.get("email"), root.get("firstName"), root.get("lastName"));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void setMetadata(CustomerDTO dto, Object value) {
+        dto.setMetadata((Map<String, Object>) value);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void setAddressMetadata(AddressDTO dto, Object value) {
+        dto.setMetadata((Map<String, Object>) value);
+    }
+    
+    private record FieldMapping(String attribute, BiConsumer<CustomerDTO, Object> setter) {
+    }
+}
@@ -2,8 +2,12 @@ package com.qvtu.repository;
 
 import com.qvtu.model.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +26,20 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
      * @return 库存项
      */
     Optional<InventoryItem> findByVariantId(Long variantId);
+    
+    /**
+     * 按SKU批量查询库存项ID，批量调整库存时一批只查询一次
+     * @param skus SKU
+     * @return SKU与库存项ID，不存在或已删除的SKU不包含在内
+     */
+    @Query("SELECT i.sku AS sku, i.id AS id FROM InventoryItem i WHERE i.sku IN :skus AND i.deletedAt IS NULL")
+    List<SkuId> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+    
+    /**
+     * SKU与库存项ID投影
+     */
+    interface SkuId {
+        String getSku();
+        Long getId();
+    }
 } 
\ No newline at end of file
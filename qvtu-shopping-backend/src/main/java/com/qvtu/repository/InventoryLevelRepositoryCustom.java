@@ -0,0 +1,206 @@
+package com.qvtu.repository;
+
+import com.qvtu.model.InventoryMovementType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 多库存项、多地点的批量预留，加锁、扣减和写入预留记录各为一条SQL
+ * 库存级别的预留量始终等于其未删除预留记录的数量之和，抢购计数器的写回和对账都以此为准；
+ * 所有修改库存级别的语句都在同一条语句内写入 inventory_movements 流水
+ */
+public interface InventoryLevelRepositoryCustom {
+    
+    /**
+     * 库存项在某地点的库存
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @param stockLevel 库存数量
+     * @param reservedQuantity 已预留数量
+     * @param flashSale 是否参与抢购
+     */
+    record StockLevel(Long inventoryItemId, Long locationId, int stockLevel, int reservedQuantity, boolean flashSale) {
+        
+        public int available() {
+            return stockLevel - reservedQuantity;
+        }
+    }
+    
+    /**
+     * 一条预留：从某地点为某库存项预留的数量
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @param quantity 数量
+     * @param orderItemId 关联的订单项ID，可为null
+     */
+    record ReservationLine(Long inventoryItemId, Long locationId, int quantity, Long orderItemId) {
+    }
+    
+    /**
+     * 一条库存调整：某地点某库存项的库存数量变化量
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @param delta 变化量，负数表示扣减
+     */
+    record StockDelta(Long inventoryItemId, Long locationId, int delta) {
+    }
+    
+    /**
+     * 一条库存变动流水
+     * @param id 流水ID，按写入顺序递增
+     * @param type 变动类型
+     * @param inventoryItemId 库存项ID
+     * @param variantId 库存项对应的产品变体ID，可为null
+     * @param locationId 库存地点ID
+     * @param stockDelta 库存数量变化量
+     * @param reservedDelta 预留量变化量
+     * @param incomingDelta 在途数量变化量
+     */
+    record Movement(long id, InventoryMovementType type, Long inventoryItemId, Long variantId, Long locationId,
+                    int stockDelta, int reservedDelta, int incomingDelta) {
+    }
+    
+    /**
+     * 某地点某库存项的当前数量，用于初始化投影
+     */
+    record LevelTotals(Long inventoryItemId, Long variantId, Long locationId,
+                       int stockLevel, int reservedQuantity, int incomingQuantity) {
+    }
+    
+    /**
+     * 锁定库存项在各地点的库存级别，按 (库存项ID, 地点ID) 顺序加锁，
+     * 并发事务以相同顺序等待，不会互相死锁
+     * @param inventoryItemIds 库存项ID
+     * @return 按加锁顺序排列的库存级别
+     */
+    List<StockLevel> lockStockLevels(Collection<Long> inventoryItemIds);
+    
+    /**
+     * 以一条语句为多个 (库存项, 地点) 增加预留量，可用库存不足的行不更新
+     * @param lines 预留行，同一 (库存项, 地点) 只能出现一次
+     * @return 实际更新的行数，小于行数时说明有地点库存不足
+     */
+    int reserveAll(List<ReservationLine> lines);
+    
+    /**
+     * 以一条语句为多个 (库存项, 地点) 减少预留量
+     * @param lines 释放行，同一 (库存项, 地点) 只能出现一次
+     * @return 实际更新的行数
+     */
+    int releaseAll(List<ReservationLine> lines);
+    
+    /**
+     * 以一条语句写入预留记录
+     * @param lines 预留行
+     * @param expiresAt 到期时间，为null时不过期
+     * @return 按输入顺序排列的预留记录ID
+     */
+    List<Long> insertReservations(List<ReservationLine> lines, LocalDateTime expiresAt);
+    
+    /**
+     * 按主键将已到期的预留标记为删除，未到期或已删除的跳过
+     * @param reservationIds 预留记录ID
+     * @return 被释放的预留行，调用方据此减少库存级别的预留量
+     */
+    List<ReservationLine> expireReservations(Collection<Long> reservationIds);
+    
+    /**
+     * 按到期时间索引取出最早到期的一批预留并标记为删除，被其他事务锁定的行跳过
+     * @param limit 最多释放的条数
+     * @return 被释放的预留行
+     */
+    List<ReservationLine> expireDueReservations(int limit);
+    
+    /**
+     * 以一条语句把抢购计数器累积的净变化量写回预留量，不校验可用库存（已在内存中准入）
+     * @param deltas 变化行，数量可为负数，同一 (库存项, 地点) 只能出现一次
+     * @return 实际更新的行数
+     */
+    int applyReservedDeltas(List<ReservationLine> deltas);
+    
+    /**
+     * 按未删除的预留记录重新计算指定库存级别的预留量
+     * @param inventoryItemIds 库存项ID，与地点ID按位置一一对应
+     * @param locationIds 库存地点ID
+     * @return 预留量被修正的库存项ID
+     */
+    List<Long> reconcileReservedQuantities(List<Long> inventoryItemIds, List<Long> locationIds);
+    
+    /**
+     * 设置库存级别的抢购标记，须在锁定该库存级别的事务内调用
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @param flashSale 是否参与抢购
+     * @return 实际更新的行数
+     */
+    int updateFlashSale(Long inventoryItemId, Long locationId, boolean flashSale);
+    
+    /**
+     * 按未删除的预留记录重新计算所有库存级别的预留量，用于启动时修复崩溃前未写回的变化量
+     * 参与抢购的库存级别可能有其他实例尚未写回的变化量，不在此修正，结束抢购时单独对账
+     * @return 预留量被修正的库存项ID
+     */
+    List<Long> reconcileAllReservedQuantities();
+    
+    /**
+     * 以一条语句调整多个 (库存项, 地点) 的库存数量，扣减后低于已预留数量的行不更新
+     * @param deltas 调整行，同一 (库存项, 地点) 只能出现一次
+     * @return 实际更新的行数
+     */
+    int adjustStockLevels(List<StockDelta> deltas);
+    
+    /**
+     * 按ID顺序读取指定位置之后的流水
+     * @param afterId 已处理的最后一条流水ID
+     * @param limit 最多读取的条数
+     * @return 流水
+     */
+    List<Movement> findMovementsAfter(long afterId, int limit);
+    
+    /**
+     * 按ID读取流水，用于补读追读时尚未提交的流水
+     * @param ids 流水ID
+     * @return 已提交的流水，尚未提交或已回滚的ID不包含在内
+     */
+    List<Movement> findMovementsByIds(Collection<Long> ids);
+    
+    /**
+     * 读取ID不超过指定值、但在给定快照中不可见的流水，即快照时尚未提交、之后才提交的流水
+     * @param snapshot pg_current_snapshot() 的文本形式
+     * @param maxId 最大流水ID
+     * @return 流水
+     */
+    List<Movement> findMovementsInvisibleIn(String snapshot, long maxId);
+    
+    /**
+     * 读取当前事务快照，可重复读事务中即事务开始时的快照
+     * @return pg_current_snapshot() 的文本形式
+     */
+    String findCurrentSnapshot();
+    
+    /**
+     * 为当前语句分配一个事务ID，大于此前已分配的所有事务ID
+     * @return 事务ID
+     */
+    long assignTransactionId();
+    
+    /**
+     * 查询仍在运行的最早事务ID，小于它的事务都已提交或回滚
+     * @return 事务ID，没有运行中的事务时为下一个待分配的事务ID
+     */
+    long findOldestRunningTransactionId();
+    
+    /**
+     * 读取所有库存级别的当前数量
+     * @return 库存级别数量
+     */
+    List<LevelTotals> findLevelTotals();
+    
+    /**
+     * 读取最后一条流水的ID
+     * @return 流水ID，没有流水时为0
+     */
+    long findLastMovementId();
+}
@@ -0,0 +1,318 @@
+package com.qvtu.repository;
+
+import com.qvtu.model.InventoryMovementType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class InventoryLevelRepositoryImpl implements InventoryLevelRepositoryCustom {
+    
+    private static final String LOCK_STOCK_LEVELS =
+            "SELECT inventory_item_id, location_id, stock_level, reserved_quantity, flash_sale FROM inventory_levels "
+                    + "WHERE inventory_item_id = ANY (?) AND deleted_at IS NULL "
+                    + "ORDER BY inventory_item_id, location_id FOR UPDATE";
+    
+    // 数组参数按位置展开为多行，条件更新在同一语句内逐行校验可用库存
+    private static final String RESERVE_ALL = withMovements(
+            "UPDATE inventory_levels il SET reserved_quantity = il.reserved_quantity + a.quantity, updated_at = now() "
+                    + "FROM unnest(?, ?, ?) AS a(inventory_item_id, location_id, quantity) "
+                    + "WHERE il.inventory_item_id = a.inventory_item_id AND il.location_id = a.location_id "
+                    + "AND il.stock_level - il.reserved_quantity >= a.quantity",
+            "'RESERVE'", "0", "a.quantity");
+    
+    private static final String RELEASE_ALL = withMovements(
+            "UPDATE inventory_levels il SET reserved_quantity = il.reserved_quantity - a.quantity, updated_at = now() "
+                    + "FROM unnest(?, ?, ?) AS a(inventory_item_id, location_id, quantity) "
+                    + "WHERE il.inventory_item_id = a.inventory_item_id AND il.location_id = a.location_id "
+                    + "AND il.reserved_quantity >= a.quantity",
+            "'RELEASE'", "0", "-a.quantity");
+    
+    // RETURNING 的行序没有保证，也不能返回输入的序号：先为每行分配ID，插入后按序号返回
+    private static final String INSERT_RESERVATIONS =
+            "WITH input AS (SELECT nextval(pg_get_serial_sequence('reservations', 'id')) AS id, r.* "
+                    + "FROM unnest(?, ?, ?, ?) WITH ORDINALITY AS r(inventory_item_id, location_id, quantity, line_item_id, ord)), "
+                    + "inserted AS (INSERT INTO reservations "
+                    + "(id, inventory_item_id, location_id, quantity, line_item_id, expires_at, created_at, updated_at) "
+                    + "SELECT i.id, i.inventory_item_id, i.location_id, i.quantity, i.line_item_id, CAST(? AS timestamp), now(), now() "
+                    + "FROM input i) "
+                    + "SELECT ord, id FROM input";
+    
+    private static final String EXPIRE_RESERVATIONS =
+            "UPDATE reservations SET deleted_at = now(), updated_at = now() "
+                    + "WHERE id = ANY (?) AND deleted_at IS NULL AND expires_at <= now() "
+                    + "RETURNING inventory_item_id, location_id, quantity";
+    
+    // 子查询沿部分索引 idx_reservations_expires_at 按到期时间顺序读取，不扫描未到期和已释放的预留
+    private static final String EXPIRE_DUE_RESERVATIONS =
+            "UPDATE reservations SET deleted_at = now(), updated_at = now() "
+                    + "WHERE id IN (SELECT id FROM reservations "
+                    + "WHERE deleted_at IS NULL AND expires_at IS NOT NULL AND expires_at <= now() "
+                    + "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING inventory_item_id, location_id, quantity";
+    
+    private static final String APPLY_RESERVED_DELTAS = withMovements(
+            "UPDATE inventory_levels il SET reserved_quantity = il.reserved_quantity + a.quantity, updated_at = now() "
+                    + "FROM unnest(?, ?, ?) AS a(inventory_item_id, location_id, quantity) "
+                    + "WHERE il.inventory_item_id = a.inventory_item_id AND il.location_id = a.location_id",
+            "'RESERVE'", "0", "a.quantity");
+    
+    // 子查询按加锁顺序锁定库存级别，读到的原预留量即为更新前的值，流水记录两者之差
+    private static final String RECONCILE_RESERVED = withMovements(
+            "UPDATE inventory_levels il SET reserved_quantity = t.total, updated_at = now() "
+                    + "FROM (SELECT l.id, l.reserved_quantity AS old_reserved, "
+                    + "(SELECT coalesce(sum(r.quantity), 0) FROM reservations r WHERE r.inventory_item_id = l.inventory_item_id "
+                    + "AND r.location_id = l.location_id AND r.deleted_at IS NULL) AS total "
+                    + "FROM inventory_levels l JOIN unnest(?, ?) AS k(inventory_item_id, location_id) "
+                    + "ON l.inventory_item_id = k.inventory_item_id AND l.location_id = k.location_id "
+                    + "ORDER BY l.inventory_item_id, l.location_id FOR UPDATE OF l) t "
+                    + "WHERE il.id = t.id AND t.total <> t.old_reserved",
+            "'ADJUST'", "0", "t.total - t.old_reserved") + " RETURNING inventory_item_id";
+    
+    private static final String RECONCILE_ALL_RESERVED = withMovements(
+            "UPDATE inventory_levels il SET reserved_quantity = t.total, updated_at = now() "
+                    + "FROM (SELECT l.id, l.reserved_quantity AS old_reserved, "
+                    + "(SELECT coalesce(sum(r.quantity), 0) FROM reservations r WHERE r.inventory_item_id = l.inventory_item_id "
+                    + "AND r.location_id = l.location_id AND r.deleted_at IS NULL) AS total "
+                    + "FROM inventory_levels l WHERE l.deleted_at IS NULL AND NOT l.flash_sale "
+                    + "ORDER BY l.inventory_item_id, l.location_id FOR UPDATE OF l) t "
+                    + "WHERE il.id = t.id AND t.total <> t.old_reserved",
+            "'ADJUST'", "0", "t.total - t.old_reserved") + " RETURNING inventory_item_id";
+    
+    private static final String ADJUST_STOCK_LEVELS = withMovements(
+            "UPDATE inventory_levels il SET stock_level = il.stock_level + a.delta, updated_at = now() "
+                    + "FROM unnest(?, ?, ?) AS a(inventory_item_id, location_id, delta) "
+                    + "WHERE il.inventory_item_id = a.inventory_item_id AND il.location_id = a.location_id "
+                    + "AND il.deleted_at IS NULL AND (a.delta >= 0 OR il.stock_level + a.delta >= il.reserved_quantity)",
+            "CASE WHEN a.delta > 0 THEN 'RECEIVE' ELSE 'ADJUST' END", "a.delta", "0");
+    
+    private static final String UPDATE_FLASH_SALE =
+            "UPDATE inventory_levels SET flash_sale = ?, updated_at = now() "
+                    + "WHERE inventory_item_id = ? AND location_id = ? AND deleted_at IS NULL";
+    
+    private static final String FIND_MOVEMENTS_AFTER =
+            "SELECT id, type, inventory_item_id, variant_id, location_id, stock_delta, reserved_delta, incoming_delta "
+                    + "FROM inventory_movements WHERE id > ? ORDER BY id LIMIT ?";
+    
+    private static final String FIND_MOVEMENTS_BY_IDS =
+            "SELECT id, type, inventory_item_id, variant_id, location_id, stock_delta, reserved_delta, incoming_delta "
+                    + "FROM inventory_movements WHERE id = ANY (?) ORDER BY id";
+    
+    private static final String FIND_MOVEMENTS_INVISIBLE_IN =
+            "SELECT id, type, inventory_item_id, variant_id, location_id, stock_delta, reserved_delta, incoming_delta "
+                    + "FROM inventory_movements, CAST(? AS pg_snapshot) s "
+                    + "WHERE id <= ? AND xid >= pg_snapshot_xmin(s) AND NOT pg_visible_in_snapshot(xid, s) ORDER BY id";
+    
+    private static final String FIND_CURRENT_SNAPSHOT = "SELECT pg_current_snapshot()::text";
+    
+    private static final String ASSIGN_TRANSACTION_ID = "SELECT pg_current_xact_id()::text::bigint";
+    
+    private static final String FIND_OLDEST_RUNNING_TRANSACTION_ID =
+            "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    
+    private static final String FIND_LEVEL_TOTALS =
+            "SELECT il.inventory_item_id, ii.variant_id, il.location_id, il.stock_level, il.reserved_quantity, "
+                    + "il.incoming_quantity FROM inventory_levels il "
+                    + "JOIN inventory_items ii ON ii.id = il.inventory_item_id";
+    
+    private static final String FIND_LAST_MOVEMENT_ID = "SELECT coalesce(max(id), 0) FROM inventory_movements";
+    
+    private static final RowMapper<ReservationLine> RELEASED_LINE_MAPPER =
+            (rs, rowNum) -> new ReservationLine(rs.getLong(1), rs.getLong(2), rs.getInt(3), null);
+    
+    private static final RowMapper<Movement> MOVEMENT_MAPPER = (rs, rowNum) -> new Movement(
+            rs.getLong(1),
+            InventoryMovementType.valueOf(rs.getString(2)),
+            rs.getLong(3),
+            rs.getObject(4, Long.class),
+            rs.getLong(5),
+            rs.getInt(6),
+            rs.getInt(7),
+            rs.getInt(8));
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 把修改库存级别的UPDATE包装为写入流水的语句，流水与修改在同一条语句内完成
+     * UPDATE 须以 il 为库存级别的别名，且不带 RETURNING
+     * @param update 修改库存级别的语句
+     * @param type 变动类型表达式
+     * @param stockDelta 库存数量变化量表达式
+     * @param reservedDelta 预留量变化量表达式
+     * @return 返回值为写入流水行数（即修改的库存级别行数）的语句
+     */
+    private static String withMovements(String update, String type, String stockDelta, String reservedDelta) {
+        return "WITH changed AS (" + update + " RETURNING il.inventory_item_id, il.location_id, "
+                + type + " AS type, " + stockDelta + " AS stock_delta, " + reservedDelta + " AS reserved_delta) "
+                + "INSERT INTO inventory_movements (type, inventory_item_id, variant_id, location_id, stock_delta, reserved_delta) "
+                + "SELECT c.type, c.inventory_item_id, ii.variant_id, c.location_id, c.stock_delta, c.reserved_delta "
+                + "FROM changed c JOIN inventory_items ii ON ii.id = c.inventory_item_id";
+    }
+    
+    @Override
+    public List<StockLevel> lockStockLevels(Collection<Long> inventoryItemIds) {
+        if (inventoryItemIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(LOCK_STOCK_LEVELS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", inventoryItemIds.toArray())),
+                (rs, rowNum) -> new StockLevel(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getBoolean(5)));
+    }
+    
+    @Override
+    public int reserveAll(List<ReservationLine> lines) {
+        return updateAll(RESERVE_ALL, lines);
+    }
+    
+    @Override
+    public int releaseAll(List<ReservationLine> lines) {
+        return updateAll(RELEASE_ALL, lines);
+    }
+    
+    @Override
+    public List<Long> insertReservations(List<ReservationLine> lines, LocalDateTime expiresAt) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        Long[] ids = new Long[lines.size()];
+        jdbcTemplate.query(INSERT_RESERVATIONS, ps -> {
+            setLineArrays(ps, lines);
+            ps.setArray(4, ps.getConnection().createArrayOf("bigint",
+                    lines.stream().map(ReservationLine::orderItemId).toArray()));
+            ps.setObject(5, expiresAt);
+        }, rs -> {
+            ids[Math.toIntExact(rs.getLong(1)) - 1] = rs.getLong(2);
+        });
+        return Arrays.asList(ids);
+    }
+    
+    @Override
+    public List<ReservationLine> expireReservations(Collection<Long> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(EXPIRE_RESERVATIONS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", reservationIds.toArray())),
+                RELEASED_LINE_MAPPER);
+    }
+    
+    @Override
+    public List<ReservationLine> expireDueReservations(int limit) {
+        return jdbcTemplate.query(EXPIRE_DUE_RESERVATIONS, ps -> ps.setInt(1, limit), RELEASED_LINE_MAPPER);
+    }
+    
+    @Override
+    public int applyReservedDeltas(List<ReservationLine> deltas) {
+        return updateAll(APPLY_RESERVED_DELTAS, deltas);
+    }
+    
+    @Override
+    public List<Long> reconcileReservedQuantities(List<Long> inventoryItemIds, List<Long> locationIds) {
+        if (inventoryItemIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(RECONCILE_RESERVED, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", inventoryItemIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", locationIds.toArray()));
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+    
+    @Override
+    public int updateFlashSale(Long inventoryItemId, Long locationId, boolean flashSale) {
+        return jdbcTemplate.update(UPDATE_FLASH_SALE, flashSale, inventoryItemId, locationId);
+    }
+    
+    @Override
+    public List<Long> reconcileAllReservedQuantities() {
+        return jdbcTemplate.query(RECONCILE_ALL_RESERVED, (rs, rowNum) -> rs.getLong(1));
+    }
+    
+    @Override
+    public int adjustStockLevels(List<StockDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(ADJUST_STOCK_LEVELS, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", deltas.stream().map(StockDelta::inventoryItemId).toArray()));
+            ps.setArray(2, connection.createArrayOf("bigint", deltas.stream().map(StockDelta::locationId).toArray()));
+            ps.setArray(3, connection.createArrayOf("integer", deltas.stream().map(StockDelta::delta).toArray()));
+        });
+    }
+    
+    @Override
+    public List<Movement> findMovementsAfter(long afterId, int limit) {
+        return jdbcTemplate.query(FIND_MOVEMENTS_AFTER, MOVEMENT_MAPPER, afterId, limit);
+    }
+    
+    @Override
+    public List<Movement> findMovementsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(FIND_MOVEMENTS_BY_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                MOVEMENT_MAPPER);
+    }
+    
+    @Override
+    public List<Movement> findMovementsInvisibleIn(String snapshot, long maxId) {
+        return jdbcTemplate.query(FIND_MOVEMENTS_INVISIBLE_IN, MOVEMENT_MAPPER, snapshot, maxId);
+    }
+    
+    @Override
+    public String findCurrentSnapshot() {
+        return jdbcTemplate.queryForObject(FIND_CURRENT_SNAPSHOT, String.class);
+    }
+    
+    @Override
+    public long assignTransactionId() {
+        Long xid = jdbcTemplate.queryForObject(ASSIGN_TRANSACTION_ID, Long.class);
+        return xid != null ? xid : 0L;
+    }
+    
+    @Override
+    public long findOldestRunningTransactionId() {
+        Long xid = jdbcTemplate.queryForObject(FIND_OLDEST_RUNNING_TRANSACTION_ID, Long.class);
+        return xid != null ? xid : 0L;
+    }
+    
+    @Override
+    public List<LevelTotals> findLevelTotals() {
+        return jdbcTemplate.query(FIND_LEVEL_TOTALS, (rs, rowNum) -> new LevelTotals(
+                rs.getLong(1),
+                rs.getObject(2, Long.class),
+                rs.getLong(3),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getInt(6)));
+    }
+    
+    @Override
+    public long findLastMovementId() {
+        Long lastId = jdbcTemplate.queryForObject(FIND_LAST_MOVEMENT_ID, Long.class);
+        return lastId != null ? lastId : 0L;
+    }
+    
+    private int updateAll(String sql, List<ReservationLine> lines) {
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(sql, ps -> setLineArrays(ps, lines));
+    }
+    
+    private static void setLineArrays(PreparedStatement ps, List<ReservationLine> lines) throws SQLException {
+        Connection connection = ps.getConnection();
+        ps.setArray(1, connection.createArrayOf("bigint", lines.stream().map(ReservationLine::inventoryItemId).toArray()));
+        ps.setArray(2, connection.createArrayOf("bigint", lines.stream().map(ReservationLine::locationId).toArray()));
+        ps.setArray(3, connection.createArrayOf("integer", lines.stream().map(ReservationLine::quantity).toArray()));
+    }
+}
@@ -2,8 +2,11 @@ package com.qvtu.repository;
 
 import com.qvtu.model.Order;
 import com.qvtu.model.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -31,6 +34,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Page<Order> findByCustomerId(Long customerId, Pageable pageable);
     
+    /**
+     * 根据客户ID按 (created_at, id) 倒序游标翻页查询订单，不执行count
+     * @param customerId 客户ID
+     * @param position 上一页最后一行的位置，第一页传 ScrollPosition.keyset()
+     * @param limit 每页条数
+     * @return 订单窗口
+     */
+    Window<Order> findByCustomerIdOrderByCreatedAtDescIdDesc(Long customerId, ScrollPosition position, Limit limit);
+    
     /**
      * 根据邮箱查询订单
      * @param email 邮箱
@@ -47,6 +59,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     
+    /**
+     * 根据状态按 (created_at, id) 倒序游标翻页查询订单，不执行count
+     * @param status 订单状态
+     * @param position 上一页最后一行的位置，第一页传 ScrollPosition.keyset()
+     * @param limit 每页条数
+     * @return 订单窗口
+     */
+    Window<Order> findByStatusOrderByCreatedAtDescIdDesc(OrderStatus status, ScrollPosition position, Limit limit);
+    
     /**
      * 查询在指定时间段内创建的订单
      * @param startDate 开始时间
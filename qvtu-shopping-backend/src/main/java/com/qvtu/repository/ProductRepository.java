@@ -9,10 +9,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     /**
      * 根据状态查询产品
@@ -22,6 +24,42 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     Page<Product> findByStatus(ProductStatus status, Pageable pageable);
     
+    /**
+     * 分页查询上架产品ID，按创建时间倒序
+     * @param status 产品状态
+     * @param pageable 分页参数
+     * @return 产品ID分页结果
+     */
+    @Query(value = "SELECT p.id FROM Product p WHERE p.status = :status AND p.deletedAt IS NULL "
+            + "ORDER BY p.createdAt DESC, p.id DESC",
+            countQuery = "SELECT count(p) FROM Product p WHERE p.status = :status AND p.deletedAt IS NULL")
+    Page<Long> findIdsByStatus(@Param("status") ProductStatus status, Pageable pageable);
+    
+    /**
+     * 分页查询属于任一给定分类的上架产品ID，按创建时间倒序
+     * 分类ID通常是某个分类及其全部子分类，一条语句完成，由 idx_product_categories_category 支撑
+     * @param categoryIds 分类ID
+     * @param pageable 分页参数
+     * @return 产品ID分页结果
+     */
+    @Query(value = "SELECT p.id FROM products p "
+            + "WHERE p.status = 'PUBLISHED' AND p.deleted_at IS NULL AND EXISTS ("
+            + "SELECT 1 FROM product_categories pc WHERE pc.product_id = p.id AND pc.category_id IN (:categoryIds)) "
+            + "ORDER BY p.created_at DESC, p.id DESC",
+            countQuery = "SELECT count(*) FROM products p "
+                    + "WHERE p.status = 'PUBLISHED' AND p.deleted_at IS NULL AND EXISTS ("
+                    + "SELECT 1 FROM product_categories pc WHERE pc.product_id = p.id AND pc.category_id IN (:categoryIds))",
+            nativeQuery = true)
+    Page<Long> findPublishedIdsByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
+    
+    /**
+     * 根据handle查询产品ID
+     * @param handle 产品handle
+     * @return 产品ID
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.handle = :handle")
+    Optional<Long> findIdByHandle(@Param("handle") String handle);
+    
     /**
      * 根据分类ID查询产品
      * @param categoryId 分类ID
@@ -36,14 +74,18 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @param query 搜索关键词
      * @param pageable 分页参数
      * @return 产品分页结果
+     * @deprecated 双向模糊匹配无法使用索引，使用 {@link com.qvtu.service.ProductSearchService}
      */
+    @Deprecated
     Page<Product> findByTitleContainingOrDescriptionContaining(String title, String description, Pageable pageable);
     
     /**
      * 查询热门产品
      * @param limit 查询数量
      * @return 热门产品列表
+     * @deprecated 每次调用都聚合全部订单明细，使用 {@link com.qvtu.service.HotProductService} 读取预先计算的榜单
      */
+    @Deprecated
     @Query(value = "SELECT p.* FROM products p " +
             "JOIN product_variants pv ON p.id = pv.product_id " +
             "JOIN order_items oi ON oi.variant_id = pv.id " +
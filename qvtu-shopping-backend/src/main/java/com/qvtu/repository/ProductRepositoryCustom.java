@@ -0,0 +1,119 @@
+package com.qvtu.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于集合的产品派生数据维护和查询
+ * 销量汇总表 product_sales_hourly 按产品和小时汇总，热销榜只需汇总时间窗口内的桶；
+ * 搜索表 product_search 保存应用分词后的tsvector，通过GIN索引匹配和排序；
+ * 分面索引所需的分类、选项值、价格和库存状态按产品批量读取
+ */
+public interface ProductRepositoryCustom {
+    
+    /**
+     * 构建搜索文档所需的产品文本
+     * @param productId 产品ID
+     * @param title 标题
+     * @param handle handle
+     * @param description 描述
+     * @param attributes 选项名、选项值和变体SKU，以空格连接
+     */
+    record SearchSource(Long productId, String title, String handle, String description, String attributes) {
+    }
+    
+    /**
+     * 构建分面索引所需的上架产品属性
+     * @param productId 产品ID
+     * @param categoryIds 所属分类ID
+     * @param options 选项名到选项值的映射
+     * @param minPrice 变体最低价格，没有定价的变体时为null
+     * @param inStock 是否有可售变体
+     */
+    record FacetSource(Long productId, Set<Long> categoryIds, Map<String, Set<String>> options,
+                       BigDecimal minPrice, boolean inStock) {
+    }
+    
+    /**
+     * 删除指定时间之前的小时桶
+     * @param before 保留的最早时间，应为整点
+     * @return 删除的桶数
+     */
+    int deleteSalesBefore(LocalDateTime before);
+    
+    /**
+     * 从订单明细重新汇总 [since, until) 范围内的小时桶，先删除范围内的旧桶，桶的值整体替换而非累加
+     * @param since 汇总起始时间，应为整点
+     * @param until 汇总截止时间，最后一个桶可以是未结束的当前小时
+     * @return 写入的桶数
+     */
+    int rollupSales(LocalDateTime since, LocalDateTime until);
+    
+    /**
+     * 按时间窗口内的销量降序查询上架产品ID
+     * @param since 窗口起始时间
+     * @param limit 最大数量
+     * @return 产品ID列表
+     */
+    List<Long> findTopSellingProductIds(LocalDateTime since, int limit);
+    
+    /**
+     * 批量查询产品的搜索文本，一条SQL完成，不加载产品实体
+     * @param productIds 产品ID
+     * @return 搜索文本，不存在的产品不包含在内
+     */
+    List<SearchSource> findSearchSources(Collection<Long> productIds);
+    
+    /**
+     * 查询尚未建立搜索文档的产品ID
+     * @param limit 最大数量
+     * @return 产品ID列表
+     */
+    List<Long> findUnindexedProductIds(int limit);
+    
+    /**
+     * 批量写入搜索文档，已存在的文档被覆盖
+     * @param documents 产品ID到tsvector文本的映射
+     */
+    void saveSearchDocuments(Map<Long, String> documents);
+    
+    /**
+     * 删除搜索文档
+     * @param productIds 产品ID
+     * @return 删除的文档数
+     */
+    int deleteSearchDocuments(Collection<Long> productIds);
+    
+    /**
+     * 按相关度降序查询匹配的上架产品ID
+     * @param query tsquery文本
+     * @param offset 偏移量
+     * @param limit 最大数量
+     * @return 产品ID列表
+     */
+    List<Long> searchProductIds(String query, long offset, int limit);
+    
+    /**
+     * 统计匹配的上架产品数
+     * @param query tsquery文本
+     * @return 产品数
+     */
+    long countSearchResults(String query);
+    
+    /**
+     * 查询全部上架产品ID，按创建时间升序
+     * @return 产品ID列表
+     */
+    List<Long> findPublishedProductIds();
+    
+    /**
+     * 批量查询上架产品的分面属性，固定执行四条SQL，与产品数量无关
+     * @param productIds 产品ID
+     * @return 分面属性，按创建时间升序，不存在或未上架的产品不包含在内
+     */
+    List<FacetSource> findFacetSources(Collection<Long> productIds);
+}
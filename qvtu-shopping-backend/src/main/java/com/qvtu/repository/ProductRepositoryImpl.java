@@ -0,0 +1,221 @@
+package com.qvtu.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    
+    private static final String DELETE_SALES_BEFORE =
+            "DELETE FROM product_sales_hourly WHERE bucket_start < ?";
+    
+    private static final String DELETE_SALES_BETWEEN =
+            "DELETE FROM product_sales_hourly WHERE bucket_start >= ? AND bucket_start < ?";
+    
+    // 与原热销查询一致，销量按订单项数计算；多个实例同时汇总同一范围时后写入的值覆盖先写入的
+    private static final String ROLLUP_SALES =
+            "INSERT INTO product_sales_hourly (product_id, bucket_start, sales) "
+                    + "SELECT pv.product_id, date_trunc('hour', o.created_at), COUNT(oi.id) "
+                    + "FROM order_items oi "
+                    + "JOIN orders o ON o.id = oi.order_id "
+                    + "JOIN product_variants pv ON pv.id = oi.variant_id "
+                    + "WHERE o.created_at >= ? AND o.created_at < ? "
+                    + "GROUP BY pv.product_id, date_trunc('hour', o.created_at) "
+                    + "ON CONFLICT (product_id, bucket_start) DO UPDATE SET sales = EXCLUDED.sales";
+    
+    private static final String FIND_TOP_SELLING =
+            "SELECT s.product_id FROM product_sales_hourly s "
+                    + "JOIN products p ON p.id = s.product_id "
+                    + "WHERE s.bucket_start >= ? AND p.status = 'PUBLISHED' AND p.deleted_at IS NULL "
+                    + "GROUP BY s.product_id "
+                    + "ORDER BY SUM(s.sales) DESC, s.product_id DESC "
+                    + "LIMIT ?";
+    
+    private static final String FIND_SEARCH_SOURCES =
+            "SELECT p.id, p.title, p.handle, p.description, concat_ws(' ', "
+                    + "(SELECT string_agg(o.title, ' ') FROM product_options o "
+                    + "WHERE o.product_id = p.id AND o.deleted_at IS NULL), "
+                    + "(SELECT string_agg(ov.value, ' ') FROM product_option_values ov "
+                    + "JOIN product_options o ON o.id = ov.option_id "
+                    + "WHERE o.product_id = p.id AND ov.deleted_at IS NULL), "
+                    + "(SELECT string_agg(v.sku, ' ') FROM product_variants v "
+                    + "WHERE v.product_id = p.id AND v.deleted_at IS NULL)) AS attributes "
+                    + "FROM products p WHERE p.id = ANY (?)";
+    
+    private static final String FIND_UNINDEXED_PRODUCT_IDS =
+            "SELECT p.id FROM products p "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM product_search s WHERE s.product_id = p.id) "
+                    + "ORDER BY p.id LIMIT ?";
+    
+    private static final String SAVE_SEARCH_DOCUMENT =
+            "INSERT INTO product_search (product_id, document, updated_at) VALUES (?, ?::tsvector, now()) "
+                    + "ON CONFLICT (product_id) DO UPDATE SET document = EXCLUDED.document, updated_at = EXCLUDED.updated_at";
+    
+    private static final String DELETE_SEARCH_DOCUMENTS =
+            "DELETE FROM product_search WHERE product_id = ANY (?)";
+    
+    private static final String SEARCH_FROM =
+            "FROM product_search s JOIN products p ON p.id = s.product_id, CAST(? AS tsquery) q "
+                    + "WHERE s.document @@ q AND p.status = 'PUBLISHED' AND p.deleted_at IS NULL ";
+    
+    private static final String SEARCH_PRODUCT_IDS =
+            "SELECT s.product_id " + SEARCH_FROM
+                    + "ORDER BY ts_rank(s.document, q) DESC, s.product_id DESC LIMIT ? OFFSET ?";
+    
+    private static final String COUNT_SEARCH_RESULTS = "SELECT count(*) " + SEARCH_FROM;
+    
+    private static final String FIND_PUBLISHED_PRODUCT_IDS =
+            "SELECT id FROM products WHERE status = 'PUBLISHED' AND deleted_at IS NULL ORDER BY created_at, id";
+    
+    private static final String FIND_PUBLISHED_PRODUCTS_BY_IDS =
+            "SELECT id FROM products WHERE id = ANY (?) AND status = 'PUBLISHED' AND deleted_at IS NULL "
+                    + "ORDER BY created_at, id";
+    
+    private static final String FIND_PRODUCT_CATEGORIES =
+            "SELECT product_id, category_id FROM product_categories WHERE product_id = ANY (?)";
+    
+    private static final String FIND_PRODUCT_OPTION_VALUES =
+            "SELECT o.product_id, o.title, ov.value FROM product_option_values ov "
+                    + "JOIN product_options o ON o.id = ov.option_id "
+                    + "WHERE o.product_id = ANY (?) AND o.deleted_at IS NULL AND ov.deleted_at IS NULL "
+                    + "AND ov.value IS NOT NULL";
+    
+    // 不管理库存或允许超卖的变体视为有货
+    private static final String FIND_PRODUCT_VARIANT_SUMMARIES =
+            "SELECT product_id, min(price), "
+                    + "bool_or(coalesce(inventory_quantity, 0) > 0 OR allow_backorder OR NOT manage_inventory) "
+                    + "FROM product_variants WHERE product_id = ANY (?) AND deleted_at IS NULL "
+                    + "GROUP BY product_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public int deleteSalesBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_SALES_BEFORE, Timestamp.valueOf(before));
+    }
+    
+    @Override
+    public int rollupSales(LocalDateTime since, LocalDateTime until) {
+        jdbcTemplate.update(DELETE_SALES_BETWEEN, Timestamp.valueOf(since), Timestamp.valueOf(until));
+        return jdbcTemplate.update(ROLLUP_SALES, Timestamp.valueOf(since), Timestamp.valueOf(until));
+    }
+    
+    @Override
+    public List<Long> findTopSellingProductIds(LocalDateTime since, int limit) {
+        return jdbcTemplate.queryForList(FIND_TOP_SELLING, Long.class, Timestamp.valueOf(since), limit);
+    }
+    
+    @Override
+    public List<SearchSource> findSearchSources(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(FIND_SEARCH_SOURCES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds.toArray())),
+                (rs, rowNum) -> new SearchSource(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)));
+    }
+    
+    @Override
+    public List<Long> findUnindexedProductIds(int limit) {
+        return jdbcTemplate.queryForList(FIND_UNINDEXED_PRODUCT_IDS, Long.class, limit);
+    }
+    
+    @Override
+    public void saveSearchDocuments(Map<Long, String> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(documents.size());
+        documents.forEach((productId, document) -> args.add(new Object[]{productId, document}));
+        jdbcTemplate.batchUpdate(SAVE_SEARCH_DOCUMENT, args);
+    }
+    
+    @Override
+    public int deleteSearchDocuments(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(DELETE_SEARCH_DOCUMENTS, ps -> {
+            Array ids = ps.getConnection().createArrayOf("bigint", productIds.toArray());
+            ps.setArray(1, ids);
+        });
+    }
+    
+    @Override
+    public List<Long> searchProductIds(String query, long offset, int limit) {
+        return jdbcTemplate.queryForList(SEARCH_PRODUCT_IDS, Long.class, query, limit, offset);
+    }
+    
+    @Override
+    public long countSearchResults(String query) {
+        Long count = jdbcTemplate.queryForObject(COUNT_SEARCH_RESULTS, Long.class, query);
+        return count != null ? count : 0L;
+    }
+    
+    @Override
+    public List<Long> findPublishedProductIds() {
+        return jdbcTemplate.queryForList(FIND_PUBLISHED_PRODUCT_IDS, Long.class);
+    }
+    
+    @Override
+    public List<FacetSource> findFacetSources(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Object[] ids = productIds.toArray();
+        List<Long> published = jdbcTemplate.query(FIND_PUBLISHED_PRODUCTS_BY_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (rs, rowNum) -> rs.getLong(1));
+        if (published.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, Set<Long>> categories = new HashMap<>();
+        jdbcTemplate.query(FIND_PRODUCT_CATEGORIES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    categories.computeIfAbsent(rs.getLong(1), key -> new HashSet<>()).add(rs.getLong(2));
+                });
+        
+        Map<Long, Map<String, Set<String>>> options = new HashMap<>();
+        jdbcTemplate.query(FIND_PRODUCT_OPTION_VALUES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    options.computeIfAbsent(rs.getLong(1), key -> new HashMap<>())
+                            .computeIfAbsent(rs.getString(2), key -> new HashSet<>())
+                            .add(rs.getString(3));
+                });
+        
+        Map<Long, BigDecimal> minPrices = new HashMap<>();
+        Set<Long> inStock = new HashSet<>();
+        jdbcTemplate.query(FIND_PRODUCT_VARIANT_SUMMARIES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    long productId = rs.getLong(1);
+                    BigDecimal minPrice = rs.getBigDecimal(2);
+                    if (minPrice != null) {
+                        minPrices.put(productId, minPrice);
+                    }
+                    if (rs.getBoolean(3)) {
+                        inStock.add(productId);
+                    }
+                });
+        
+        List<FacetSource> sources = new ArrayList<>(published.size());
+        for (Long productId : published) {
+            sources.add(new FacetSource(productId,
+                    categories.getOrDefault(productId, Set.of()),
+                    options.getOrDefault(productId, Map.of()),
+                    minPrices.get(productId),
+                    inStock.contains(productId)));
+        }
+        return sources;
+    }
+}
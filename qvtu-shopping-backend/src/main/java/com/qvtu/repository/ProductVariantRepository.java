@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,12 +29,52 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     
     /**
      * 查询产品下有库存的变体
+     * 直接读取反规范化的可售数量，不再连接库存项和库存级别，多地点库存也不会产生重复行
      * @param productId 产品ID
      * @return 有库存的产品变体列表
      */
     @Query("SELECT pv FROM ProductVariant pv " +
-            "JOIN InventoryItem ii ON ii.variant.id = pv.id " +
-            "JOIN InventoryLevel il ON il.inventoryItem.id = ii.id " +
-            "WHERE pv.product.id = :productId AND il.stockLevel > 0")
+            "WHERE pv.product.id = :productId AND pv.deletedAt IS NULL " +
+            "AND (pv.inventoryQuantity > 0 OR pv.allowBackorder = true OR pv.manageInventory = false)")
     List<ProductVariant> findInStockVariantsByProductId(@Param("productId") Long productId);
+    
+    /**
+     * 按主键批量查询变体可售数量
+     * @param variantIds 产品变体ID
+     * @return 可售信息
+     */
+    @Query("SELECT pv.id AS id, pv.inventoryQuantity AS inventoryQuantity, " +
+            "pv.allowBackorder AS allowBackorder, pv.manageInventory AS manageInventory " +
+            "FROM ProductVariant pv WHERE pv.id IN :variantIds")
+    List<VariantAvailability> findAvailabilityByIdIn(@Param("variantIds") Collection<Long> variantIds);
+    
+    /**
+     * 按库存级别重新计算库存项对应变体的可售数量
+     * 变体行按ID顺序加锁，并发事务以相同顺序等待，不会互相死锁
+     * @param inventoryItemIds 库存项ID
+     * @return 有货状态发生变化的变体所属的产品ID
+     */
+    @Query(value = "WITH locked AS (" +
+            "SELECT pv.id, pv.inventory_quantity AS old_quantity, ii.id AS inventory_item_id " +
+            "FROM product_variants pv JOIN inventory_items ii ON ii.variant_id = pv.id " +
+            "WHERE ii.id IN (:inventoryItemIds) ORDER BY pv.id FOR UPDATE OF pv), " +
+            "updated AS (" +
+            "UPDATE product_variants pv SET inventory_quantity = coalesce((" +
+            "SELECT sum(il.stock_level - il.reserved_quantity) FROM inventory_levels il " +
+            "WHERE il.inventory_item_id = l.inventory_item_id AND il.deleted_at IS NULL), 0) " +
+            "FROM locked l WHERE pv.id = l.id " +
+            "RETURNING pv.product_id, pv.inventory_quantity, l.old_quantity) " +
+            "SELECT DISTINCT product_id FROM updated WHERE (inventory_quantity > 0) <> (old_quantity > 0)",
+            nativeQuery = true)
+    List<Long> refreshInventoryQuantities(@Param("inventoryItemIds") Collection<Long> inventoryItemIds);
+    
+    /**
+     * 变体可售信息投影
+     */
+    interface VariantAvailability {
+        Long getId();
+        Integer getInventoryQuantity();
+        Boolean getAllowBackorder();
+        Boolean getManageInventory();
+    }
 } 
\ No newline at end of file
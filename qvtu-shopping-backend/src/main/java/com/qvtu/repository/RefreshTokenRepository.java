@@ -0,0 +1,45 @@
+package com.qvtu.repository;
+
+import com.qvtu.model.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    
+    /**
+     * 根据令牌摘要查询刷新令牌并加行锁，防止同一令牌被并发轮换
+     * @param tokenHash 令牌摘要
+     * @return 刷新令牌
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    /**
+     * 撤销整个令牌家族
+     * @param familyId 家族ID
+     * @param revokedAt 撤销时间
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt " +
+            "WHERE rt.familyId = :familyId AND rt.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("revokedAt") LocalDateTime revokedAt);
+    
+    /**
+     * 删除已过期的刷新令牌
+     * @param now 当前时间
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+} 
@@ -0,0 +1,38 @@
+package com.qvtu.repository;
+
+import com.qvtu.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    
+    /**
+     * 查询尚未过期的撤销记录，用于同步内存撤销集合
+     * @param now 当前时间
+     * @return 未过期的撤销记录
+     */
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+    
+    /**
+     * 判断访问令牌是否已撤销
+     * @param jti 令牌ID
+     * @return 是否已撤销
+     */
+    boolean existsByJti(String jti);
+    
+    /**
+     * 删除已过期的撤销记录
+     * @param now 当前时间
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken rt WHERE rt.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+} 
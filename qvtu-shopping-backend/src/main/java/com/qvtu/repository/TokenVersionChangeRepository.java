@@ -0,0 +1,31 @@
+package com.qvtu.repository;
+
+import com.qvtu.model.TokenVersionChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenVersionChangeRepository extends JpaRepository<TokenVersionChange, Long> {
+    
+    /**
+     * 查询尚未过期的令牌版本变更，用于同步内存登记表
+     * @param now 当前时间
+     * @return 未过期的版本变更
+     */
+    List<TokenVersionChange> findByExpiresAtAfter(LocalDateTime now);
+    
+    /**
+     * 删除已过期的版本变更
+     * @param now 当前时间
+     * @return 受影响的行数
+     */
+    @Modifying
+    @Query("DELETE FROM TokenVersionChange c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
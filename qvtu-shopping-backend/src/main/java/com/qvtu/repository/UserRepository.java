@@ -2,8 +2,12 @@ package com.qvtu.repository;
 
 import com.qvtu.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -23,6 +27,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
     
+    /**
+     * 批量查询已存在的电子邮件，用于批量导入时一次性校验整批邮箱
+     * @param emails 电子邮件集合
+     * @return 已存在的电子邮件
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
     /**
      * 根据电子邮件和密码查找用户
      * @param email 电子邮件
@@ -2,62 +2,104 @@ package com.qvtu.security;
 
 import com.qvtu.service.impl.UserDetailsServiceImpl;
 import com.qvtu.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * JWT认证过滤器，用于验证JWT令牌的有效性
+ * 令牌携带角色、用户ID和版本号时直接根据声明构建认证信息，
+ * 仅在版本号表明需要回库校验时才查询数据库；已验证过的令牌从缓存中取声明，跳过签名校验，
+ * 已撤销的令牌通过内存撤销列表拦截
  */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    
+
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
-    
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList tokenRevocationList;
+
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) 
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        
+
         final String authorizationHeader = request.getHeader("Authorization");
-        
-        String username = null;
-        String jwt = null;
-        
+
+        Claims claims = null;
+
         // 从Authorization头部中提取JWT令牌
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.getUsernameFromToken(jwt);
-            } catch (Exception e) {
-                logger.error("无法从JWT令牌中提取用户名", e);
+            String jwt = authorizationHeader.substring(7);
+            claims = verifiedTokenCache.get(jwt);
+            if (claims == null) {
+                try {
+                    claims = jwtUtil.parseToken(jwt);
+                    verifiedTokenCache.put(jwt, claims);
+                } catch (Exception e) {
+                    logger.error("无法从JWT令牌中提取用户名", e);
+                }
             }
         }
-        
-        // 如果从JWT令牌中成功提取了用户名，且当前没有认证信息，则验证令牌
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            
-            // 验证JWT令牌的有效性
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+
+        // 如果令牌验证通过，且当前没有认证信息，则构建认证信息
+        if (claims != null && claims.getSubject() != null
+                && !tokenRevocationList.isRevoked(claims.getId())
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolveUserDetails(claims);
+
+            if (userDetails != null && userDetails.isEnabled()) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
         }
-        
+
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 根据令牌声明解析用户信息
+     * @param claims 已验证的令牌声明
+     * @return 用户信息，令牌已失效时返回null
+     */
+    private UserDetails resolveUserDetails(Claims claims) {
+        String username = claims.getSubject();
+        Long userId = jwtUtil.getUserId(claims);
+        Long tokenVersion = jwtUtil.getTokenVersion(claims);
+
+        // 旧版令牌不含版本声明，沿用查库方式
+        if (userId == null || tokenVersion == null) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            return jwtUtil.validateToken(claims, userDetails.getUsername()) ? userDetails : null;
+        }
+
+        // 版本号落后于已知的最新版本时回库校验
+        if (tokenVersionRegistry.requiresRevalidation(userId, tokenVersion)) {
+            return userDetailsService.loadUserIfTokenCurrent(username, tokenVersion).orElse(null);
+        }
+
+        List<SimpleGrantedAuthority> authorities = jwtUtil.getRoles(claims).stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new User(username, "", authorities);
+    }
+}
@@ -0,0 +1,84 @@
+package com.qvtu.security;
+
+import com.qvtu.model.TokenVersionChange;
+import com.qvtu.repository.TokenVersionChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌版本登记表
+ * 记录用户最低有效令牌版本，过滤器据此判断是否需要回库校验。
+ * 版本变更写入 token_version_changes，保留到变更前签发的访问令牌全部过期；
+ * 定时重新读取未过期的变更，使其他实例和重启后的实例也能识别旧令牌
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final TokenVersionChangeRepository tokenVersionChangeRepository;
+    private final long accessTokenTtlMillis;
+
+    // 用户ID -> 最低有效版本及其保留截止时间
+    private final Map<Long, Floor> minimumVersions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(TokenVersionChangeRepository tokenVersionChangeRepository,
+                                @Value("${app.jwt.expiration}") long accessTokenTtlSeconds) {
+        this.tokenVersionChangeRepository = tokenVersionChangeRepository;
+        this.accessTokenTtlMillis = accessTokenTtlSeconds * 1000;
+    }
+
+    /**
+     * 登记并持久化用户的最新令牌版本
+     * @param userId 用户ID
+     * @param version 最新令牌版本
+     */
+    public void bump(Long userId, long version) {
+        if (userId == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + accessTokenTtlMillis;
+        TokenVersionChange change = new TokenVersionChange();
+        change.setUserId(userId);
+        change.setTokenVersion(version);
+        change.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        tokenVersionChangeRepository.save(change);
+        minimumVersions.merge(userId, new Floor(version, expiresAt), Floor::max);
+    }
+
+    /**
+     * 判断令牌版本是否需要回库校验
+     * @param userId 用户ID
+     * @param tokenVersion 令牌中携带的版本
+     * @return 是否需要回库校验
+     */
+    public boolean requiresRevalidation(Long userId, long tokenVersion) {
+        Floor minimum = minimumVersions.get(userId);
+        return minimum != null && tokenVersion < minimum.version();
+    }
+
+    /**
+     * 从数据库同步未过期的版本变更，并清理已过期的条目
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:30000}")
+    public synchronized void sync() {
+        long now = System.currentTimeMillis();
+        for (TokenVersionChange change : tokenVersionChangeRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            long expiresAt = change.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            minimumVersions.merge(change.getUserId(), new Floor(change.getTokenVersion(), expiresAt), Floor::max);
+        }
+        minimumVersions.values().removeIf(floor -> floor.expiresAtMillis() <= now);
+    }
+
+    private record Floor(long version, long expiresAtMillis) {
+
+        Floor max(Floor other) {
+            return new Floor(Math.max(version, other.version), Math.max(expiresAtMillis, other.expiresAtMillis));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.qvtu.service;
+
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存分配策略，决定一条预留从哪些地点出货
+ * 实现类注册为Spring Bean，通过 app.inventory.allocation-strategy 按Bean名称选择
+ */
+public interface AllocationStrategy {
+    
+    /**
+     * 为一个库存项分配地点
+     * @param quantity 需要的数量
+     * @param levels 该库存项在各地点的库存，已扣除本次请求中先前行的分配，按地点ID升序
+     * @return 地点ID到分配数量的映射，数量之和等于quantity；无法满足时返回空映射
+     */
+    Map<Long, Integer> allocate(int quantity, List<StockLevel> levels);
+}
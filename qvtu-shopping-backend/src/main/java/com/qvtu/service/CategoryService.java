@@ -0,0 +1,54 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.CategoryDTO;
+
+import java.util.List;
+
+public interface CategoryService {
+    
+    /**
+     * 获取完整分类树，从内存读取
+     * @return 根分类列表，每个分类包含其子分类
+     */
+    List<CategoryDTO> getTree();
+    
+    /**
+     * 根据ID获取分类及其子树
+     * @param id 分类ID
+     * @return 分类信息
+     */
+    CategoryDTO findById(Long id);
+    
+    /**
+     * 获取分类本身及其全部子孙分类的ID
+     * @param id 分类ID
+     * @return 分类ID列表，分类不存在时为空
+     */
+    List<Long> getDescendantIds(Long id);
+    
+    /**
+     * 创建分类
+     * @param categoryDTO 分类信息
+     * @return 创建的分类
+     */
+    CategoryDTO createCategory(CategoryDTO categoryDTO);
+    
+    /**
+     * 更新分类，仅更新非空字段
+     * @param id 分类ID
+     * @param categoryDTO 分类信息
+     * @return 更新后的分类
+     */
+    CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO);
+    
+    /**
+     * 软删除分类，存在子分类时不允许删除
+     * @param id 分类ID
+     */
+    void deleteCategory(Long id);
+    
+    /**
+     * 从数据库重新加载分类树并整体替换
+     */
+    void refresh();
+}
@@ -0,0 +1,17 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.CustomerGroupMembersResult;
+
+import java.util.Collection;
+
+public interface CustomerGroupService {
+    
+    /**
+     * 批量变更群组成员，加入和移出各执行一条SQL
+     * @param groupId 群组ID
+     * @param add 要加入的客户ID，可为空
+     * @param remove 要移出的客户ID，可为空
+     * @return 实际加入和移出的成员数
+     */
+    CustomerGroupMembersResult updateMembers(Long groupId, Collection<Long> add, Collection<Long> remove);
+}
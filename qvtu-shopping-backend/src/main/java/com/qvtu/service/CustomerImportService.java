@@ -0,0 +1,28 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.CustomerImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CustomerImportService {
+    
+    /**
+     * 导入文件格式
+     */
+    enum Format {
+        CSV,
+        NDJSON
+    }
+    
+    /**
+     * 流式批量导入客户
+     * 按批校验邮箱、并行哈希密码并以JDBC批量插入用户、客户和地址，
+     * 单行错误只记录在结果中，不中断整个导入
+     * @param input 输入流，CSV首行为表头，NDJSON每行一个JSON对象
+     * @param format 文件格式
+     * @return 导入结果
+     * @throws IOException 读取输入失败
+     */
+    CustomerImportResult importCustomers(InputStream input, Format format) throws IOException;
+}
@@ -4,9 +4,11 @@ import com.qvtu.dto.AddressDTO;
 import com.qvtu.dto.CustomerDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CustomerService {
     
@@ -32,20 +34,57 @@ public interface CustomerService {
     Optional<CustomerDTO> findByUserId(Long userId);
     
     /**
-     * 分页查询所有客户
+     * 分页查询所有客户，等同于不带关键词、展开地址和群组的 {@link #findCustomers}
      * @param pageable 分页参数
      * @return 客户DTO分页结果
      */
     Page<CustomerDTO> findAll(Pageable pageable);
     
     /**
-     * 搜索客户
+     * 搜索客户，等同于展开地址和群组的 {@link #findCustomers}
      * @param query 搜索关键词
      * @param pageable 分页参数
      * @return 客户DTO分页结果
      */
     Page<CustomerDTO> search(String query, Pageable pageable);
     
+    /**
+     * 分页查询群组成员
+     * @param groupId 群组ID
+     * @param pageable 分页参数
+     * @return 客户DTO分页结果
+     */
+    Page<CustomerDTO> findByGroupId(Long groupId, Pageable pageable);
+    
+    /**
+     * 按字段投影分页查询客户列表
+     * 只查询请求的列，地址和群组仅在expand中指定时才查询
+     * @param query 搜索关键词，为空时查询全部
+     * @param fields 需要返回的字段，为空时返回全部基本字段
+     * @param expand 需要展开的关联（addresses、groups）
+     * @param pageable 分页参数
+     * @return 客户DTO分页结果
+     */
+    Page<CustomerDTO> findCustomers(String query, Set<String> fields, Set<String> expand, Pageable pageable);
+    
+    /**
+     * 按 (created_at, id) 游标翻页查询客户列表，不执行count，页深度不影响查询耗时
+     * @param query 搜索关键词，为空时查询全部
+     * @param fields 需要返回的字段，为空时返回全部基本字段
+     * @param expand 需要展开的关联（addresses、groups）
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param limit 每页条数
+     * @return 客户DTO窗口
+     */
+    Window<CustomerDTO> scrollCustomers(String query, Set<String> fields, Set<String> expand, String cursor, int limit);
+    
+    /**
+     * 查询客户的近似数量，结果短时间缓存
+     * @param query 搜索关键词，为空时使用表统计信息估算
+     * @return 客户数量
+     */
+    long countCustomers(String query);
+    
     /**
      * 创建客户
      * @param customerDTO 客户DTO
@@ -0,0 +1,42 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.ReservationDTO;
+
+public interface FlashSaleService {
+    
+    /**
+     * 让库存级别参与抢购：先按预留记录对账，再以当前可售量开放内存计数器
+     * 参与期间该库存项不能再通过批量预留或库存调整接口修改
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @return 计数器开放的可售量
+     * @throws com.qvtu.exception.ResourceNotFoundException 库存级别不存在
+     * @throws com.qvtu.exception.BadRequestException 已在参与抢购
+     */
+    long arm(Long inventoryItemId, Long locationId);
+    
+    /**
+     * 结束抢购：关闭计数器并写回剩余的变化量，再按预留记录对账并清除抢购标记
+     * 须在开始抢购的实例上调用；该实例已重启、计数器已丢失时可在任一实例调用
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     */
+    void disarm(Long inventoryItemId, Long locationId);
+    
+    /**
+     * 在内存中准入一次预留，准入后写入预留记录，预留量由定时任务批量写回
+     * @param inventoryItemId 库存项ID
+     * @param locationId 库存地点ID
+     * @param quantity 预留数量
+     * @param lineItemId 关联的订单项ID，可为null
+     * @return 创建的预留记录
+     * @throws com.qvtu.exception.InsufficientInventoryException 可售量不足
+     * @throws com.qvtu.exception.BadRequestException 库存级别未参与抢购或数量超过单次上限
+     */
+    ReservationDTO reserve(Long inventoryItemId, Long locationId, int quantity, Long lineItemId);
+    
+    /**
+     * 把所有计数器累积的净变化量在一个事务内写回库存级别
+     */
+    void flush();
+}
@@ -0,0 +1,67 @@
+package com.qvtu.service;
+
+import com.qvtu.exception.BadRequestException;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface HotProductService {
+    
+    /**
+     * 热销榜时间窗口
+     */
+    enum Window {
+        LAST_24_HOURS("24h", Duration.ofHours(24)),
+        LAST_7_DAYS("7d", Duration.ofDays(7)),
+        LAST_30_DAYS("30d", Duration.ofDays(30));
+        
+        private final String code;
+        private final Duration duration;
+        
+        Window(String code, Duration duration) {
+            this.code = code;
+            this.duration = duration;
+        }
+        
+        public String getCode() {
+            return code;
+        }
+        
+        public Duration getDuration() {
+            return duration;
+        }
+        
+        /**
+         * 根据接口参数解析时间窗口
+         * @param code 窗口代码，如 24h、7d、30d
+         * @return 时间窗口
+         * @throws BadRequestException 不支持的窗口代码
+         */
+        public static Window fromCode(String code) {
+            for (Window window : values()) {
+                if (window.code.equalsIgnoreCase(code)) {
+                    return window;
+                }
+            }
+            throw new BadRequestException("Unsupported window: " + code);
+        }
+    }
+    
+    /**
+     * 读取内存中预先计算的热销榜，不访问数据库
+     * @param window 时间窗口
+     * @param limit 最大数量
+     * @return 按销量降序的产品ID
+     */
+    List<Long> getHotProductIds(Window window, int limit);
+    
+    /**
+     * 从订单明细重新汇总上次汇总以来的小时桶，再重新计算各时间窗口的榜单并整体替换内存快照
+     */
+    void refresh();
+    
+    /**
+     * 从订单明细全量重建最长时间窗口内的销量汇总表，并删除更早的桶
+     */
+    void rebuild();
+}
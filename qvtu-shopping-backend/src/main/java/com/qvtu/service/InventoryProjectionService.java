@@ -0,0 +1,41 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.InventoryTotalsDTO;
+
+import java.util.List;
+
+public interface InventoryProjectionService {
+    
+    /**
+     * 查询变体在所有地点的库存汇总
+     * @param variantId 产品变体ID
+     * @return 库存汇总
+     * @throws com.qvtu.exception.ResourceNotFoundException 变体没有库存级别
+     */
+    InventoryTotalsDTO getVariantTotals(Long variantId);
+    
+    /**
+     * 查询地点所有库存项的库存汇总
+     * @param locationId 库存地点ID
+     * @return 库存汇总
+     * @throws com.qvtu.exception.ResourceNotFoundException 地点没有库存级别
+     */
+    InventoryTotalsDTO getLocationTotals(Long locationId);
+    
+    /**
+     * 查询可售量低于阈值的变体
+     * @return 低库存变体的库存汇总，按可售量从低到高排列
+     */
+    List<InventoryTotalsDTO> getLowStockVariants();
+    
+    /**
+     * 读取上次处理位置之后的库存流水并计入汇总
+     * @return 计入的流水条数
+     */
+    int poll();
+    
+    /**
+     * 从库存级别的当前数量重建汇总，修正投影与库存级别之间累积的偏差
+     */
+    void rebuild();
+}
@@ -0,0 +1,23 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.VariantAvailabilityDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface InventoryService {
+    
+    /**
+     * 按主键批量读取变体可售数量，一次查询完成
+     * @param variantIds 产品变体ID
+     * @return 可售信息，不存在的变体不包含在内
+     */
+    List<VariantAvailabilityDTO> getAvailability(Collection<Long> variantIds);
+    
+    /**
+     * 按库存级别重新计算库存项对应变体的可售数量，须在修改库存级别的同一事务内调用
+     * 有货状态发生变化的产品在事务提交后刷新缓存和分面索引
+     * @param inventoryItemIds 库存项ID
+     */
+    void refreshAvailability(Collection<Long> inventoryItemIds);
+}
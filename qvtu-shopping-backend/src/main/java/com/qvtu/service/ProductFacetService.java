@@ -0,0 +1,32 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.ProductDTO;
+import com.qvtu.dto.ProductFacetQuery;
+import com.qvtu.dto.ProductFacetsDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ProductFacetService {
+    
+    /**
+     * 分面筛选结果
+     * @param products 当前页产品
+     * @param facets 分面计数
+     */
+    record Result(Page<ProductDTO> products, ProductFacetsDTO facets) {
+    }
+    
+    /**
+     * 按分类、选项值、价格区间和库存状态筛选上架产品，并在同一次调用中返回分面计数
+     * 筛选和计数都在内存索引中完成，不执行数据库聚合
+     * @param query 筛选条件
+     * @param pageable 分页参数
+     * @return 筛选结果
+     */
+    Result filter(ProductFacetQuery query, Pageable pageable);
+    
+    /**
+     * 从数据库全量重建分面索引，重建期间的产品变更在替换后重新加载
+     */
+    void rebuild();
+}
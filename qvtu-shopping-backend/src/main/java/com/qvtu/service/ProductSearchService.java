@@ -0,0 +1,40 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.ProductDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductSearchService {
+    
+    /**
+     * 按相关度搜索上架产品，标题和handle权重最高，其次是选项和SKU，最后是描述；
+     * 每个词都按前缀匹配
+     * @param query 搜索关键词
+     * @param pageable 分页参数
+     * @return 产品分页结果
+     */
+    Page<ProductDTO> search(String query, Pageable pageable);
+    
+    /**
+     * 输入联想，返回相关度最高的若干产品，不统计总数
+     * @param query 已输入的关键词
+     * @param limit 最大数量
+     * @return 产品列表
+     */
+    List<ProductDTO> autocomplete(String query, int limit);
+    
+    /**
+     * 重建产品的搜索文档，产品不存在时删除其文档
+     * @param productIds 产品ID
+     */
+    void index(Collection<Long> productIds);
+    
+    /**
+     * 为尚未建立搜索文档的产品建立文档
+     * @return 建立的文档数
+     */
+    int indexMissing();
+}
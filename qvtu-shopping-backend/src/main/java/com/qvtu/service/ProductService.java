@@ -0,0 +1,62 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.ProductDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductService {
+    
+    /**
+     * 分页查询上架产品，产品详情从缓存读取，未命中的产品批量加载后回填缓存
+     * @param categoryId 分类ID，包含其全部子孙分类，为空时查询全部
+     * @param pageable 分页参数
+     * @return 产品分页结果
+     */
+    Page<ProductDTO> findPublished(Long categoryId, Pageable pageable);
+    
+    /**
+     * 按给定顺序批量查询上架产品，不存在或未上架的产品被跳过
+     * @param ids 产品ID
+     * @return 产品列表
+     */
+    List<ProductDTO> findPublishedByIds(List<Long> ids);
+    
+    /**
+     * 根据ID查询上架产品
+     * @param id 产品ID
+     * @return 产品信息
+     * @throws com.qvtu.exception.ResourceNotFoundException 产品不存在、未上架或已删除
+     */
+    ProductDTO findPublishedById(Long id);
+    
+    /**
+     * 根据handle查询上架产品
+     * @param handle 产品handle
+     * @return 产品信息，不存在或未上架时为空
+     */
+    Optional<ProductDTO> findPublishedByHandle(String handle);
+    
+    /**
+     * 根据ID查询产品，不限状态
+     * @param id 产品ID
+     * @return 产品信息
+     */
+    ProductDTO findById(Long id);
+    
+    /**
+     * 更新产品基本信息，提交后失效该产品的缓存
+     * @param id 产品ID
+     * @param productDTO 产品信息，仅更新非空字段
+     * @return 更新后的产品信息
+     */
+    ProductDTO updateProduct(Long id, ProductDTO productDTO);
+    
+    /**
+     * 软删除产品，提交后失效该产品的缓存
+     * @param id 产品ID
+     */
+    void deleteProduct(Long id);
+}
@@ -0,0 +1,28 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.auth.AuthResponse;
+import com.qvtu.model.User;
+
+public interface RefreshTokenService {
+    
+    /**
+     * 为用户签发新的刷新令牌（开启新的令牌家族）
+     * @param user 用户
+     * @return 刷新令牌明文
+     */
+    String issueRefreshToken(User user);
+    
+    /**
+     * 使用刷新令牌换取新的访问令牌，并轮换刷新令牌
+     * @param refreshToken 刷新令牌明文
+     * @return 认证响应
+     */
+    AuthResponse refresh(String refreshToken);
+    
+    /**
+     * 登出：撤销访问令牌和刷新令牌所在家族
+     * @param accessToken 访问令牌，可为空
+     * @param refreshToken 刷新令牌，可为空
+     */
+    void logout(String accessToken, String refreshToken);
+} 
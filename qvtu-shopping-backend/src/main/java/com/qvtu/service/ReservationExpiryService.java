@@ -0,0 +1,33 @@
+package com.qvtu.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReservationExpiryService {
+    
+    /**
+     * 计算此刻创建的预留的到期时间
+     * @return 到期时间
+     */
+    LocalDateTime newExpiry();
+    
+    /**
+     * 在时间轮中登记新建预留的到期时间，须在写入预留记录后调用
+     * 事务回滚后残留的登记在到期时按主键找不到未删除的预留，不会误释放
+     * @param reservationIds 预留记录ID
+     * @param expiresAt 到期时间
+     */
+    void track(List<Long> reservationIds, LocalDateTime expiresAt);
+    
+    /**
+     * 推进时间轮，释放本实例登记的已到期预留
+     * @return 释放的预留条数
+     */
+    int releaseDue();
+    
+    /**
+     * 按到期时间索引分批释放所有已到期的预留，覆盖时间轮遗漏、重启前和其他实例创建的预留
+     * @return 释放的预留条数
+     */
+    int releaseExpired();
+}
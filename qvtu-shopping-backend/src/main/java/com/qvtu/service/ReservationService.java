@@ -0,0 +1,18 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.ReservationDTO;
+import com.qvtu.dto.ReservationRequest;
+
+import java.util.List;
+
+public interface ReservationService {
+    
+    /**
+     * 原子地预留一批库存项，由分配策略选择出货地点
+     * 任何一行库存不足时整批回滚，不会留下部分预留
+     * @param items 预留项
+     * @return 创建的预留记录，一行可能拆分到多个地点
+     * @throws com.qvtu.exception.InsufficientInventoryException 库存不足
+     */
+    List<ReservationDTO> reserve(List<ReservationRequest.Item> items);
+}
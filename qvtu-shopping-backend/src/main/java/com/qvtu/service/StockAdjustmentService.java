@@ -0,0 +1,28 @@
+package com.qvtu.service;
+
+import com.qvtu.dto.StockAdjustmentResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface StockAdjustmentService {
+    
+    /**
+     * 输入文件格式
+     */
+    enum Format {
+        CSV,
+        NDJSON
+    }
+    
+    /**
+     * 流式批量调整库存，用于采购入库和盘点
+     * 按批解析SKU、锁定库存级别并以一条语句更新，每批一个事务；
+     * 同一批内同一库存级别的多行按净变化量一起生效或一起失败，单行错误只记录在结果中
+     * @param input 输入流，CSV首行为表头，NDJSON每行一个JSON对象
+     * @param format 文件格式
+     * @return 调整结果
+     * @throws IOException 读取输入失败
+     */
+    StockAdjustmentResult adjust(InputStream input, Format format) throws IOException;
+}
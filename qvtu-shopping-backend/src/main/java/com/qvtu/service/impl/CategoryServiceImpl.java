@@ -0,0 +1,152 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CategoryDTO;
+import com.qvtu.event.CategoryChangedEvent;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.exception.ResourceNotFoundException;
+import com.qvtu.model.Category;
+import com.qvtu.repository.CategoryRepository;
+import com.qvtu.service.CategoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分类服务
+ * 全部分类一次查询后构建为不可变的 {@link CategoryTree}，读取只访问内存；
+ * 本实例的写操作提交后立即重建，其他实例的写操作由定时刷新同步
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CategoryServiceImpl implements CategoryService {
+    
+    private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+    
+    @Override
+    public List<CategoryDTO> getTree() {
+        return tree.roots();
+    }
+    
+    @Override
+    public CategoryDTO findById(Long id) {
+        return tree.find(id).orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
+    }
+    
+    @Override
+    public List<Long> getDescendantIds(Long id) {
+        return tree.descendantIds(id);
+    }
+    
+    @Override
+    @Transactional
+    public CategoryDTO createCategory(CategoryDTO categoryDTO) {
+        if (categoryDTO.getName() == null || categoryDTO.getName().isBlank()) {
+            throw new BadRequestException("Category name is required");
+        }
+        Category category = new Category();
+        applyChanges(category, categoryDTO);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
+        return mapToCategoryDTO(savedCategory);
+    }
+    
+    @Override
+    @Transactional
+    public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO) {
+        Category category = findActiveCategory(id);
+        if (categoryDTO.getParent_id() != null && tree.isDescendant(id, categoryDTO.getParent_id())) {
+            throw new BadRequestException("Category cannot be moved under itself or its descendants");
+        }
+        applyChanges(category, categoryDTO);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return mapToCategoryDTO(savedCategory);
+    }
+    
+    @Override
+    @Transactional
+    public void deleteCategory(Long id) {
+        Category category = findActiveCategory(id);
+        if (categoryRepository.existsByParentIdAndDeletedAtIsNull(id)) {
+            throw new BadRequestException("Category has child categories");
+        }
+        category.setDeletedAt(LocalDateTime.now());
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${app.categories.refresh-interval-ms:300000}")
+    public void refresh() {
+        tree = CategoryTree.build(categoryRepository.findAllActive());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+    
+    /**
+     * 分类变更提交后重建分类树
+     * 监听器在提交后执行，不能沿用类上的只读事务
+     * @param event 分类变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        refresh();
+    }
+    
+    private Category findActiveCategory(Long id) {
+        return categoryRepository.findById(id)
+                .filter(category -> category.getDeletedAt() == null)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
+    }
+    
+    private void applyChanges(Category category, CategoryDTO categoryDTO) {
+        if (categoryDTO.getHandle() != null && !categoryDTO.getHandle().equals(category.getHandle())) {
+            categoryRepository.findIdByHandle(categoryDTO.getHandle())
+                    .filter(existingId -> !existingId.equals(category.getId()))
+                    .ifPresent(existingId -> {
+                        throw new BadRequestException("Category handle already exists: " + categoryDTO.getHandle());
+                    });
+            category.setHandle(categoryDTO.getHandle());
+        }
+        if (categoryDTO.getName() != null) {
+            category.setName(categoryDTO.getName());
+        }
+        if (categoryDTO.getDescription() != null) {
+            category.setDescription(categoryDTO.getDescription());
+        }
+        if (categoryDTO.getRank() != null) {
+            category.setRank(categoryDTO.getRank());
+        }
+        if (categoryDTO.getParent_id() != null) {
+            category.setParent(findActiveCategory(categoryDTO.getParent_id()));
+        }
+    }
+    
+    private CategoryDTO mapToCategoryDTO(Category category) {
+        return CategoryDTO.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .handle(category.getHandle())
+                .description(category.getDescription())
+                .parent_id(category.getParent() != null ? category.getParent().getId() : null)
+                .rank(category.getRank())
+                .build();
+    }
+}
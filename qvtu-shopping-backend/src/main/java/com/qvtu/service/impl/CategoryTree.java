@@ -0,0 +1,140 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CategoryDTO;
+import com.qvtu.model.Category;
+
+import java.util.*;
+
+/**
+ * 不可变的内存分类树
+ * 构建时按前序遍历为每个分类编号（嵌套集合），分类的全部子孙在前序数组中占据连续区间 [left, right)，
+ * 查询子孙分类只需截取该区间；每个节点同时记录物化路径。分类变更时整体重建并替换
+ */
+final class CategoryTree {
+    
+    static final CategoryTree EMPTY = build(List.of());
+    
+    private static final Comparator<Category> SIBLING_ORDER = Comparator
+            .comparing(Category::getRank, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Category::getId);
+    
+    private final List<CategoryDTO> roots;
+    private final Map<Long, CategoryDTO> nodes;
+    private final Map<Long, int[]> ranges;
+    private final Long[] preorder;
+    
+    private CategoryTree(List<CategoryDTO> roots, Map<Long, CategoryDTO> nodes, Map<Long, int[]> ranges, List<Long> preorder) {
+        this.roots = List.copyOf(roots);
+        this.nodes = Map.copyOf(nodes);
+        this.ranges = Map.copyOf(ranges);
+        this.preorder = preorder.toArray(new Long[0]);
+    }
+    
+    /**
+     * 从分类实体构建分类树，父分类不存在的分类作为根分类
+     * @param categories 全部未删除的分类
+     * @return 分类树
+     */
+    static CategoryTree build(Collection<Category> categories) {
+        Map<Long, Category> byId = new HashMap<>();
+        for (Category category : categories) {
+            byId.put(category.getId(), category);
+        }
+        Map<Long, List<Category>> childrenByParent = new HashMap<>();
+        List<Category> rootCategories = new ArrayList<>();
+        for (Category category : categories) {
+            Long parentId = category.getParent() != null ? category.getParent().getId() : null;
+            if (parentId != null && byId.containsKey(parentId)) {
+                childrenByParent.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category);
+            } else {
+                rootCategories.add(category);
+            }
+        }
+        
+        Builder builder = new Builder(childrenByParent);
+        rootCategories.sort(SIBLING_ORDER);
+        List<CategoryDTO> roots = new ArrayList<>(rootCategories.size());
+        for (Category root : rootCategories) {
+            roots.add(builder.visit(root, ""));
+        }
+        return new CategoryTree(roots, builder.nodes, builder.ranges, builder.preorder);
+    }
+    
+    /**
+     * @return 根分类，子分类按rank和ID排序
+     */
+    List<CategoryDTO> roots() {
+        return roots;
+    }
+    
+    /**
+     * @param id 分类ID
+     * @return 分类及其子树
+     */
+    Optional<CategoryDTO> find(Long id) {
+        return Optional.ofNullable(nodes.get(id));
+    }
+    
+    /**
+     * 查询分类本身及其全部子孙分类的ID
+     * @param id 分类ID
+     * @return 分类ID列表，分类不存在时为空
+     */
+    List<Long> descendantIds(Long id) {
+        int[] range = ranges.get(id);
+        if (range == null) {
+            return List.of();
+        }
+        return Arrays.asList(preorder).subList(range[0], range[1]);
+    }
+    
+    /**
+     * 判断一个分类是否为另一个分类本身或其子孙
+     * @param ancestorId 祖先分类ID
+     * @param id 分类ID
+     * @return 是否为其本身或子孙
+     */
+    boolean isDescendant(Long ancestorId, Long id) {
+        int[] ancestor = ranges.get(ancestorId);
+        int[] node = ranges.get(id);
+        return ancestor != null && node != null && node[0] >= ancestor[0] && node[0] < ancestor[1];
+    }
+    
+    private static final class Builder {
+        
+        private final Map<Long, List<Category>> childrenByParent;
+        private final Map<Long, CategoryDTO> nodes = new HashMap<>();
+        private final Map<Long, int[]> ranges = new HashMap<>();
+        private final List<Long> preorder = new ArrayList<>();
+        
+        private Builder(Map<Long, List<Category>> childrenByParent) {
+            this.childrenByParent = childrenByParent;
+        }
+        
+        private CategoryDTO visit(Category category, String parentPath) {
+            int left = preorder.size();
+            preorder.add(category.getId());
+            String path = parentPath.isEmpty() ? String.valueOf(category.getId()) : parentPath + "/" + category.getId();
+            
+            List<Category> children = childrenByParent.getOrDefault(category.getId(), List.of());
+            List<CategoryDTO> childNodes = new ArrayList<>(children.size());
+            children.stream()
+                    .sorted(SIBLING_ORDER)
+                    .forEach(child -> childNodes.add(visit(child, path)));
+            
+            CategoryDTO node = CategoryDTO.builder()
+                    .id(category.getId())
+                    .name(category.getName())
+                    .handle(category.getHandle())
+                    .description(category.getDescription())
+                    .parent_id(category.getParent() != null ? category.getParent().getId() : null)
+                    .rank(category.getRank())
+                    .path(path)
+                    .children(List.copyOf(childNodes))
+                    .build();
+            nodes.put(category.getId(), node);
+            ranges.put(category.getId(), new int[]{left, preorder.size()});
+            return node;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.config.CacheConfig;
+import com.qvtu.dto.CustomerGroupMembersResult;
+import com.qvtu.exception.ResourceNotFoundException;
+import com.qvtu.repository.CustomerGroupRepository;
+import com.qvtu.service.CustomerGroupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CustomerGroupServiceImpl implements CustomerGroupService {
+    
+    private final CustomerGroupRepository customerGroupRepository;
+    
+    @Override
+    // 客户资料中包含所属群组，成员变化可能涉及大量客户，整体清空客户缓存
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_EMAIL, CacheConfig.CUSTOMERS_BY_USER_ID},
+            allEntries = true)
+    public CustomerGroupMembersResult updateMembers(Long groupId, Collection<Long> add, Collection<Long> remove) {
+        if (!customerGroupRepository.existsById(groupId)) {
+            throw new ResourceNotFoundException("CustomerGroup", "id", groupId);
+        }
+        
+        int removed = remove != null ? customerGroupRepository.removeCustomers(groupId, new LinkedHashSet<>(remove)) : 0;
+        int added = add != null ? customerGroupRepository.addCustomers(groupId, new LinkedHashSet<>(add)) : 0;
+        
+        return CustomerGroupMembersResult.builder()
+                .added(added)
+                .removed(removed)
+                .build();
+    }
+}
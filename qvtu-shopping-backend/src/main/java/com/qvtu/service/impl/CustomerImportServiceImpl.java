@@ -0,0 +1,368 @@
+package com.qvtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qvtu.dto.CustomerImportResult;
+import com.qvtu.dto.CustomerImportRow;
+import com.qvtu.repository.UserRepository;
+import com.qvtu.service.CustomerImportService;
+import com.qvtu.util.RowReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户批量导入
+ * 输入按批读取，每批只查询一次已存在的邮箱，密码在独立线程池中并行哈希，
+ * 用户、角色、客户和地址以JDBC批量插入；一批写入失败时逐行重试，定位出错的行
+ */
+@Service
+public class CustomerImportServiceImpl implements CustomerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportServiceImpl.class);
+
+    private static final String DEFAULT_ROLE = "ROLE_CUSTOMER";
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, email, password, first_name, last_name, phone, is_active, token_version, "
+                    + "metadata, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, true, 0, '{}'::jsonb, ?, ?)";
+
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role) VALUES (?, ?)";
+
+    private static final String INSERT_CUSTOMER =
+            "INSERT INTO customers (id, has_account, company_name, default_billing_address_id, "
+                    + "default_shipping_address_id, metadata) VALUES (?, ?, ?, ?, ?, '{}'::jsonb)";
+
+    private static final String INSERT_ADDRESS =
+            "INSERT INTO addresses (id, customer_id, first_name, last_name, company, address_1, address_2, city, "
+                    + "country_code, province, postal_code, phone, is_default_shipping, is_default_billing, metadata, "
+                    + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, true, '{}'::jsonb, ?, ?)";
+
+    private static final String ALLOCATE_IDS =
+            "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService hashingPool;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public CustomerImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     UserRepository userRepository,
+                                     PasswordEncoder passwordEncoder,
+                                     Validator validator,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.customer-import.batch-size:1000}") int batchSize,
+                                     @Value("${app.customer-import.hashing-threads:0}") int hashingThreads,
+                                     @Value("${app.customer-import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+
+        // 与登录使用的哈希线程池分开，导入不会挤占登录请求
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "customer-import-hashing-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CustomerImportResult importCustomers(InputStream input, Format format) throws IOException {
+        long startedAt = System.nanoTime();
+        ImportJob job = new ImportJob();
+
+        try (RowReader source = format == Format.NDJSON ? RowReader.ndjson(input, objectMapper) : RowReader.csv(input)) {
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            RowReader.Row sourceRow;
+            while ((sourceRow = source.next()) != null) {
+                job.total++;
+                ImportRow row = parse(sourceRow, job);
+                if (row != null) {
+                    batch.add(row);
+                }
+                if (batch.size() >= batchSize) {
+                    processBatch(batch, job);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                processBatch(batch, job);
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        double rowsPerSecond = elapsedMillis > 0 ? job.imported * 1000.0 / elapsedMillis : job.imported;
+        logger.info("Customer import finished: {} rows, {} imported, {} failed in {} ms ({} rows/s)",
+                job.total, job.imported, job.failed, elapsedMillis, String.format("%.1f", rowsPerSecond));
+
+        return CustomerImportResult.builder()
+                .total(job.total)
+                .imported(job.imported)
+                .failed(job.failed)
+                .elapsed_ms(elapsedMillis)
+                .rows_per_second(rowsPerSecond)
+                .errors(job.errors)
+                .errors_truncated(job.failed > job.errors.size())
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    /**
+     * 转换并校验一行数据，格式错误、校验失败或与本次导入中前面的行邮箱重复时记录错误
+     */
+    private ImportRow parse(RowReader.Row sourceRow, ImportJob job) {
+        if (sourceRow.error() != null) {
+            job.fail(sourceRow.rowNumber(), null, sourceRow.error());
+            return null;
+        }
+
+        CustomerImportRow data;
+        try {
+            data = objectMapper.convertValue(sourceRow.values(), CustomerImportRow.class);
+        } catch (IllegalArgumentException e) {
+            job.fail(sourceRow.rowNumber(), null, "Malformed row: " + e.getMessage());
+            return null;
+        }
+        if (data.getEmail() != null) {
+            data.setEmail(data.getEmail().trim());
+        }
+
+        Set<ConstraintViolation<CustomerImportRow>> violations = validator.validate(data);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<CustomerImportRow> violation = violations.iterator().next();
+            job.fail(sourceRow.rowNumber(), data.getEmail(), violation.getPropertyPath() + ": " + violation.getMessage());
+            return null;
+        }
+        if (hasText(data.getAddress_1())
+                && (!hasText(data.getCity()) || !hasText(data.getCountry_code()) || !hasText(data.getPostal_code()))) {
+            job.fail(sourceRow.rowNumber(), data.getEmail(), "address_1 requires city, country_code and postal_code");
+            return null;
+        }
+        if (!job.seenEmails.add(data.getEmail())) {
+            job.fail(sourceRow.rowNumber(), data.getEmail(), "Duplicate email in import");
+            return null;
+        }
+        return new ImportRow(sourceRow.rowNumber(), data);
+    }
+
+    private void processBatch(List<ImportRow> batch, ImportJob job) {
+        // 一次查询整批邮箱
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                batch.stream().map(row -> row.data().getEmail()).toList()));
+        List<ImportRow> rows = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            if (existing.contains(row.data().getEmail())) {
+                job.fail(row.rowNumber(), row.data().getEmail(), "Email already exists");
+            } else {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        hashPasswords(rows, job);
+        allocateIds(rows);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(rows));
+            job.imported += rows.size();
+        } catch (DataAccessException batchFailure) {
+            // 整批回滚后逐行重试，只让出错的行失败
+            for (ImportRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                    job.imported++;
+                } catch (DataAccessException e) {
+                    job.fail(row.rowNumber(), row.data().getEmail(),
+                            NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 并行哈希本批密码，未提供密码的客户共用一个随机口令的哈希，标记为未开通账户，只能通过重置密码登录
+     */
+    private void hashPasswords(List<ImportRow> rows, ImportJob job) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String password = row.data().getPassword();
+            if (hasText(password)) {
+                futures.add(CompletableFuture.runAsync(
+                        () -> row.passwordHash = passwordEncoder.encode(password), hashingPool));
+            } else {
+                row.passwordHash = job.placeholderHash();
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 预先从序列中取出本批的用户ID和地址ID，插入时客户与地址可以直接互相引用
+     */
+    private void allocateIds(List<ImportRow> rows) {
+        List<Long> userIds = nextIds("users", rows.size());
+        long addressCount = rows.stream().filter(row -> hasText(row.data().getAddress_1())).count();
+        List<Long> addressIds = addressCount > 0 ? nextIds("addresses", (int) addressCount) : List.of();
+
+        int addressIndex = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            row.userId = userIds.get(i);
+            if (hasText(row.data().getAddress_1())) {
+                row.addressId = addressIds.get(addressIndex++);
+            }
+        }
+    }
+
+    private List<Long> nextIds(String table, int count) {
+        return jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, table, count);
+    }
+
+    private void insert(List<ImportRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(), (ps, row) -> {
+            CustomerImportRow data = row.data();
+            ps.setLong(1, row.userId);
+            ps.setString(2, data.getEmail());
+            ps.setString(3, row.passwordHash);
+            ps.setString(4, data.getFirst_name());
+            ps.setString(5, data.getLast_name());
+            ps.setString(6, data.getPhone());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.userId);
+            ps.setString(2, DEFAULT_ROLE);
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_CUSTOMER, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.userId);
+            ps.setBoolean(2, hasText(row.data().getPassword()));
+            ps.setString(3, row.data().getCompany_name());
+            ps.setObject(4, row.addressId);
+            ps.setObject(5, row.addressId);
+        });
+
+        List<ImportRow> withAddress = rows.stream().filter(row -> row.addressId != null).toList();
+        if (!withAddress.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ADDRESS, withAddress, withAddress.size(), (ps, row) -> {
+                CustomerImportRow data = row.data();
+                ps.setLong(1, row.addressId);
+                ps.setLong(2, row.userId);
+                ps.setString(3, data.getFirst_name());
+                ps.setString(4, data.getLast_name());
+                ps.setString(5, data.getCompany_name());
+                ps.setString(6, data.getAddress_1());
+                ps.setString(7, data.getAddress_2());
+                ps.setString(8, data.getCity());
+                ps.setString(9, data.getCountry_code());
+                ps.setString(10, data.getProvince());
+                ps.setString(11, data.getPostal_code());
+                ps.setString(12, data.getPhone());
+                ps.setTimestamp(13, now);
+                ps.setTimestamp(14, now);
+            });
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * 一次导入任务的进度和错误
+     */
+    private final class ImportJob {
+
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<CustomerImportResult.RowError> errors = new ArrayList<>();
+        private long total;
+        private long imported;
+        private long failed;
+        private String placeholderHash;
+
+        void fail(long rowNumber, String email, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CustomerImportResult.RowError(rowNumber, email, message));
+            }
+        }
+
+        String placeholderHash() {
+            if (placeholderHash == null) {
+                byte[] secret = new byte[32];
+                new SecureRandom().nextBytes(secret);
+                placeholderHash = passwordEncoder.encode(Base64.getEncoder().encodeToString(secret));
+            }
+            return placeholderHash;
+        }
+    }
+
+    private static final class ImportRow {
+
+        private final long rowNumber;
+        private final CustomerImportRow data;
+        private volatile String passwordHash;
+        private Long userId;
+        private Long addressId;
+
+        ImportRow(long rowNumber, CustomerImportRow data) {
+            this.rowNumber = rowNumber;
+            this.data = data;
+        }
+
+        long rowNumber() {
+            return rowNumber;
+        }
+
+        CustomerImportRow data() {
+            return data;
+        }
+    }
+}
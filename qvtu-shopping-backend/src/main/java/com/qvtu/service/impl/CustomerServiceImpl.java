@@ -1,8 +1,6 @@
 package com.qvtu.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.qvtu.config.CacheConfig;
 import com.qvtu.dto.AddressDTO;
 import com.qvtu.dto.CustomerDTO;
 import com.qvtu.dto.CustomerGroupDTO;
@@ -15,19 +13,30 @@ import com.qvtu.model.CustomerGroup;
 import com.qvtu.repository.AddressRepository;
 import com.qvtu.repository.CustomerRepository;
 import com.qvtu.repository.CustomerGroupRepository;
+import com.qvtu.security.TokenVersionRegistry;
 import com.qvtu.service.CustomerService;
 import com.qvtu.service.UserService;
+import com.qvtu.util.CursorCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.hibernate.Hibernate;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
@@ -41,16 +50,28 @@ import java.util.ArrayList;
 @Transactional
 public class CustomerServiceImpl implements CustomerService {
     
+    // 与原 findAll/search 返回的结构一致
+    private static final Set<String> FULL_EXPAND = Set.of("addresses", "groups");
+    
     private final CustomerRepository customerRepository;
     private final AddressRepository addressRepository;
     private final CustomerGroupRepository customerGroupRepository;
-    private final ObjectMapper objectMapper;
     private final UserService userService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CacheManager cacheManager;
+    
+    // 近似客户数量缓存，避免游标翻页时每页都执行count
+    private final Cache<String, Long> approximateCounts = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofSeconds(60))
+            .build();
     
     @PersistenceContext
     private EntityManager entityManager;
     
     @Override
+    // 同步加载：加载期间提交的失效会等待加载完成后再清除，不会留下旧值
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS, key = "#id", sync = true)
     public CustomerDTO findById(Long id) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
@@ -58,12 +79,14 @@ public class CustomerServiceImpl implements CustomerService {
     }
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_EMAIL, key = "#email", unless = "#result == null")
     public Optional<CustomerDTO> findByEmail(String email) {
         return customerRepository.findByEmail(email)
                 .map(this::mapToDTO);
     }
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_USER_ID, key = "#userId", unless = "#result == null")
     public Optional<CustomerDTO> findByUserId(Long userId) {
         return customerRepository.findByUserId(userId)
                 .map(this::mapToDTO);
@@ -71,15 +94,71 @@ public class CustomerServiceImpl implements CustomerService {
     
     @Override
     public Page<CustomerDTO> findAll(Pageable pageable) {
-        return customerRepository.findAll(pageable)
-                .map(this::mapToDTO);
+        return findCustomers(null, null, FULL_EXPAND, pageable);
     }
     
     @Override
     public Page<CustomerDTO> search(String query, Pageable pageable) {
-        return customerRepository.findByFirstNameContainingOrLastNameContainingOrEmailContaining(
-                query, query, query, pageable)
-                .map(this::mapToDTO);
+        return findCustomers(query, null, FULL_EXPAND, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> findByGroupId(Long groupId, Pageable pageable) {
+        if (!customerGroupRepository.existsById(groupId)) {
+            throw new ResourceNotFoundException("CustomerGroup", "id", groupId);
+        }
+        return mapPage(customerRepository.findByGroupId(groupId, pageable));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> findCustomers(String query, Set<String> fields, Set<String> expand, Pageable pageable) {
+        Page<CustomerDTO> page = customerRepository.findCustomerRows(query, fields, pageable);
+        expandRelations(page.getContent(), expand);
+        return page;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Window<CustomerDTO> scrollCustomers(String query, Set<String> fields, Set<String> expand,
+                                               String cursor, int limit) {
+        Window<CustomerDTO> window = customerRepository.scrollCustomerRows(
+                query, fields, CursorCodec.decode(cursor), limit);
+        expandRelations(window.getContent(), expand);
+        return window;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long countCustomers(String query) {
+        return approximateCounts.get(query != null ? query : "", customerRepository::estimateCustomerCount);
+    }
+    
+    /**
+     * 为一页客户批量加载请求展开的地址和群组，每种关联只查询一次
+     * @param customers 当前页客户
+     * @param expand 需要展开的关联
+     */
+    private void expandRelations(List<CustomerDTO> customers, Set<String> expand) {
+        if (customers.isEmpty() || expand == null || expand.isEmpty()) {
+            return;
+        }
+        
+        List<Long> ids = customers.stream()
+                .map(CustomerDTO::getId)
+                .collect(Collectors.toList());
+        
+        if (expand.contains("addresses") || expand.contains("shipping_addresses")) {
+            Map<Long, List<AddressDTO>> addresses = customerRepository.findAddressRowsByCustomerIds(ids);
+            customers.forEach(dto -> dto.setShipping_addresses(addresses.getOrDefault(dto.getId(), new ArrayList<>())));
+        }
+        if (expand.contains("groups")) {
+            Map<Long, List<CustomerGroup>> groups = customerRepository.findGroupsByCustomerIds(ids);
+            customers.forEach(dto -> dto.setGroups(groups.getOrDefault(dto.getId(), List.of()).stream()
+                    .map(this::mapToCustomerGroupDTO)
+                    .collect(Collectors.toSet())));
+        }
     }
     
     @Override
@@ -155,10 +234,19 @@ public class CustomerServiceImpl implements CustomerService {
     }
     
     @Override
+    // 邮箱可能变更，按邮箱缓存的条目无法按键定位，整体清空
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS_BY_EMAIL, CacheConfig.USERS_BY_EMAIL}, allEntries = true)
+    })
     public CustomerDTO updateCustomer(Long id, CustomerDTO customerDTO) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
         
+        // 邮箱是令牌主题，变更后旧令牌需要失效
+        if (customerDTO.getEmail() != null && !customerDTO.getEmail().equals(customer.getEmail())) {
+            invalidateTokens(customer);
+        }
         customer.setEmail(customerDTO.getEmail());
         customer.setFirstName(customerDTO.getFirst_name());
         customer.setLastName(customerDTO.getLast_name());
@@ -173,10 +261,15 @@ public class CustomerServiceImpl implements CustomerService {
     }
     
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS_BY_EMAIL, CacheConfig.USERS_BY_EMAIL}, allEntries = true)
+    })
     public void deleteCustomer(Long id) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
         
+        invalidateTokens(customer);
         customerRepository.delete(customer);
     }
     
@@ -203,9 +296,11 @@ public class CustomerServiceImpl implements CustomerService {
     }
     
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#customerId")
     public AddressDTO addAddress(Long customerId, AddressDTO addressDTO) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
+        evictByEmail(customer.getEmail());
         
         Address address = new Address();
         address.setCustomer(customer);
@@ -220,26 +315,24 @@ public class CustomerServiceImpl implements CustomerService {
         address.setCountryCode(addressDTO.getCountry_code());
         address.setPhone(addressDTO.getPhone());
         
-        // 处理默认地址
-        if (addressDTO.is_default()) {
-            customer.getAddresses().forEach(a -> a.setIsDefaultShipping(false));
-            address.setIsDefaultShipping(true);
-            
-            customer.getAddresses().forEach(a -> a.setIsDefaultBilling(false));
-            address.setIsDefaultBilling(true);
-        }
-        
         address.setMetadata(addressDTO.getMetadata());
         
         Address savedAddress = addressRepository.save(address);
         
+        // 处理默认地址
+        if (addressDTO.is_default()) {
+            switchDefaultAddress(savedAddress);
+        }
+        
         return mapToAddressDTO(savedAddress);
     }
     
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#customerId")
     public AddressDTO updateAddress(Long customerId, Long addressId, AddressDTO addressDTO) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
+        if (!customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer", "id", customerId);
+        }
         
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", addressId));
@@ -248,6 +341,7 @@ public class CustomerServiceImpl implements CustomerService {
         if (!address.getCustomer().getId().equals(customerId)) {
             throw new ResourceNotFoundException("Address", "id", addressId);
         }
+        evictByEmail(address.getCustomer().getEmail());
         
         // 更新地址属性
         if (addressDTO.getFirst_name() != null) address.setFirstName(addressDTO.getFirst_name());
@@ -261,21 +355,6 @@ public class CustomerServiceImpl implements CustomerService {
         if (addressDTO.getCountry_code() != null) address.setCountryCode(addressDTO.getCountry_code());
         if (addressDTO.getPhone() != null) address.setPhone(addressDTO.getPhone());
         
-        // 处理默认设置
-        if (addressDTO.is_default()) {
-            // 先取消其他地址的默认配送设置
-            customer.getAddresses().stream()
-                .filter(a -> !a.getId().equals(addressId))
-                .forEach(a -> a.setIsDefaultShipping(false));
-            address.setIsDefaultShipping(true);
-            
-            // 先取消其他地址的默认账单设置
-            customer.getAddresses().stream()
-                .filter(a -> !a.getId().equals(addressId))
-                .forEach(a -> a.setIsDefaultBilling(false));
-            address.setIsDefaultBilling(true);
-        }
-        
         // 更新元数据
         if (addressDTO.getMetadata() != null) {
             address.setMetadata(addressDTO.getMetadata());
@@ -284,14 +363,20 @@ public class CustomerServiceImpl implements CustomerService {
         // 保存更新后的地址
         Address updatedAddress = addressRepository.save(address);
         
+        // 处理默认设置
+        if (addressDTO.is_default()) {
+            switchDefaultAddress(updatedAddress);
+        }
+        
         return mapToAddressDTO(updatedAddress);
     }
     
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#customerId")
     public void deleteAddress(Long customerId, Long addressId) {
-        // Just check if customer exists
-        customerRepository.findById(customerId)
+        Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
+        evictByEmail(customer.getEmail());
         
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", addressId));
@@ -302,12 +387,19 @@ public class CustomerServiceImpl implements CustomerService {
         }
         
         addressRepository.delete(address);
+        
+        // 删除的是默认地址时清除客户上的默认地址ID
+        if (address.isDefaultShipping() || address.isDefaultBilling()) {
+            customerRepository.clearDefaultAddressIds(customerId, addressId);
+        }
     }
     
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#customerId")
     public AddressDTO setDefaultAddress(Long customerId, Long addressId) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
+        if (!customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer", "id", customerId);
+        }
         
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", addressId));
@@ -317,32 +409,56 @@ public class CustomerServiceImpl implements CustomerService {
             throw new ResourceNotFoundException("Address", "id", addressId);
         }
         
-        // 将所有地址设置为非默认（同时设置为默认送货和默认账单地址）
-        customer.getAddresses().forEach(a -> {
-            a.setIsDefaultShipping(false);
-            a.setIsDefaultBilling(false);
-        });
+        evictByEmail(address.getCustomer().getEmail());
         
-        // 将当前地址设置为默认
+        // 同时设置为默认送货和默认账单地址
+        switchDefaultAddress(address);
+        
+        return mapToAddressDTO(address);
+    }
+    
+    /**
+     * 清除客户按邮箱缓存的条目，事务提交后生效
+     * @param email 客户邮箱
+     */
+    private void evictByEmail(String email) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(CacheConfig.CUSTOMERS_BY_EMAIL);
+        if (cache != null && email != null) {
+            cache.evict(email);
+        }
+    }
+    
+    /**
+     * 将地址设为客户的默认配送和账单地址
+     * 先更新客户行上的默认地址ID（锁只加在该客户上），再用一条语句切换地址上的默认标记，
+     * 不加载客户的全部地址；批量更新会清空持久化上下文，传入的地址随后只用于返回结果
+     * @param address 已保存的地址
+     */
+    private void switchDefaultAddress(Address address) {
+        Long customerId = address.getCustomer().getId();
+        customerRepository.updateDefaultAddressIds(customerId, address.getId());
+        addressRepository.switchDefaultAddress(customerId, address.getId());
         address.setIsDefaultShipping(true);
         address.setIsDefaultBilling(true);
-        
-        Address updatedAddress = addressRepository.save(address);
-        
-        return mapToAddressDTO(updatedAddress);
     }
     
     @Override
+    // 群组不影响用户信息，邮箱不变，只清除该客户按邮箱缓存的条目
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS_BY_EMAIL, key = "#result.email")
+    })
     public CustomerDTO updateCustomerGroups(Long id, List<Long> groupIds) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
         
-        // 这里需要实现客户群组的更新逻辑
-        // 假设有CustomerGroup实体和对应的Repository
-        List<CustomerGroup> groups = groupIds.stream()
-                .map(groupId -> customerGroupRepository.findById(groupId)
-                    .orElseThrow(() -> new ResourceNotFoundException("CustomerGroup", "id", groupId)))
-                .collect(Collectors.toList());
+        // 一次查询全部群组，缺失的群组ID报404
+        Set<Long> requestedIds = new HashSet<>(groupIds);
+        List<CustomerGroup> groups = customerGroupRepository.findAllById(requestedIds);
+        if (groups.size() != requestedIds.size()) {
+            groups.forEach(group -> requestedIds.remove(group.getId()));
+            throw new ResourceNotFoundException("CustomerGroup", "id", requestedIds.iterator().next());
+        }
         
         customer.setGroups(new HashSet<>(groups));
         customer.setUpdatedAt(LocalDateTime.now());
@@ -374,6 +490,34 @@ public class CustomerServiceImpl implements CustomerService {
         return mapToAddressDTO(address);
     }
     
+    /**
+     * 递增客户令牌版本，使此前签发的令牌在下次请求时回库校验
+     * @param customer Customer实体
+     */
+    private void invalidateTokens(Customer customer) {
+        long nextVersion = (customer.getTokenVersion() != null ? customer.getTokenVersion() : 0L) + 1;
+        customer.setTokenVersion(nextVersion);
+        tokenVersionRegistry.bump(customer.getId(), nextVersion);
+    }
+    
+    /**
+     * 转换客户分页结果
+     * 地址和群组按整页各用一条查询加载到当前持久化上下文，mapToDTO中不再逐行触发懒加载
+     * @param page 客户分页结果
+     * @return CustomerDTO分页结果
+     */
+    private Page<CustomerDTO> mapPage(Page<Customer> page) {
+        if (page.hasContent()) {
+            List<Long> ids = page.getContent().stream()
+                    .filter(Objects::nonNull)
+                    .map(Customer::getId)
+                    .collect(Collectors.toList());
+            customerRepository.findWithAddressesByIdIn(ids);
+            customerRepository.findWithGroupsByIdIn(ids);
+        }
+        return page.map(this::mapToDTO);
+    }
+    
     /**
      * 将Customer实体转换为CustomerDTO
      * @param customer Customer实体
@@ -455,19 +599,10 @@ public class CustomerServiceImpl implements CustomerService {
     
     // 将客户组实体映射为DTO
     private CustomerGroupDTO mapToCustomerGroupDTO(CustomerGroup group) {
-        Map<String, Object> metadataMap = null;
-        try {
-            if (group.getMetadata() != null) {
-                metadataMap = objectMapper.readValue(group.getMetadata(), new TypeReference<Map<String, Object>>() {});
-            }
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Error converting metadata", e);
-        }
-        
         return CustomerGroupDTO.builder()
                 .id(group.getId())
                 .name(group.getName())
-                .metadata(metadataMap)
+                .metadata(group.getMetadata())
                 .createdAt(group.getCreatedAt())
                 .updatedAt(group.getUpdatedAt())
                 .build();
@@ -482,7 +617,7 @@ public class CustomerServiceImpl implements CustomerService {
         customer.setLastName(dto.getLast_name());
         customer.setPhone(dto.getPhone());
         customer.setAvatarUrl(dto.getAvatar_url());
-        customer.setHasAccount(dto.isHas_account());
+        customer.setHasAccount(!Boolean.FALSE.equals(dto.getHas_account()));
         customer.setCompanyName(dto.getCompany_name());
         customer.setDefaultBillingAddressId(dto.getBilling_address_id());
         customer.setDefaultShippingAddressId(dto.getShipping_address_id());
@@ -0,0 +1,206 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.ReservationDTO;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.exception.InsufficientInventoryException;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.ReservationLine;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.FlashSaleService;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.ReservationExpiryService;
+import com.qvtu.service.impl.InventoryCounters.Counter;
+import com.qvtu.service.impl.InventoryCounters.Key;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 抢购库存服务
+ * 预留由内存计数器准入，准入后只追加一条预留记录，不更新 inventory_levels；
+ * 计数器累积的净变化量定时在一个事务内以一条语句写回，同一行每轮最多更新一次。
+ * 预留记录先于写回持久化。参与抢购的库存级别在数据库中带有抢购标记，所有实例的数据库路径在行锁下检查该标记，
+ * 启动对账也跳过这些库存级别，避免把其他实例尚未写回的变化量重复计入；结束抢购时等待进行中的准入写入预留记录后再按预留记录对账
+ */
+@Service
+public class FlashSaleServiceImpl implements FlashSaleService {
+
+    private final InventoryCounters counters;
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final InventoryService inventoryService;
+    private final ReservationExpiryService reservationExpiryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxQuantity;
+
+    public FlashSaleServiceImpl(InventoryCounters counters,
+                                InventoryLevelRepository inventoryLevelRepository,
+                                InventoryService inventoryService,
+                                ReservationExpiryService reservationExpiryService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.inventory.flash-sale.max-quantity:5}") int maxQuantity) {
+        this.counters = counters;
+        this.inventoryLevelRepository = inventoryLevelRepository;
+        this.inventoryService = inventoryService;
+        this.reservationExpiryService = reservationExpiryService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxQuantity = maxQuantity;
+    }
+
+    @Override
+    public long arm(Long inventoryItemId, Long locationId) {
+        Key key = new Key(inventoryItemId, locationId);
+        Counter counter = counters.register(key);
+        if (counter == null) {
+            throw new BadRequestException("Inventory item " + inventoryItemId + " at location " + locationId
+                    + " is already on flash sale");
+        }
+        try {
+            // 在行锁下设置抢购标记：已持锁的数据库预留提交后计入对账结果，之后持锁的会看到标记而拒绝
+            StockLevel level = transactionTemplate.execute(status -> {
+                if (lockLevel(inventoryItemId, locationId).flashSale()) {
+                    throw new BadRequestException("Inventory item " + inventoryItemId + " at location " + locationId
+                            + " is already on flash sale");
+                }
+                inventoryService.refreshAvailability(
+                        inventoryLevelRepository.reconcileReservedQuantities(List.of(inventoryItemId), List.of(locationId)));
+                inventoryLevelRepository.updateFlashSale(inventoryItemId, locationId, true);
+                return lockLevel(inventoryItemId, locationId);
+            });
+            long available = Math.max(level.available(), 0);
+            counters.open(counter, available);
+            return available;
+        } catch (RuntimeException e) {
+            counters.remove(key);
+            throw e;
+        }
+    }
+
+    @Override
+    public void disarm(Long inventoryItemId, Long locationId) {
+        Key key = new Key(inventoryItemId, locationId);
+        Counter counter = counters.remove(key);
+        if (counter != null) {
+            // 已准入但尚未写入预留记录的预留必须先落库，否则对账会把它们的预留量减掉
+            counter.awaitAdmissions();
+            try {
+                flush(Map.of(key, counter));
+            } catch (RuntimeException e) {
+                // 写回失败时保留已关闭的计数器和抢购标记，继续阻止数据库路径并由定时任务重试
+                counters.reinstate(key, counter);
+                throw e;
+            }
+        }
+        // 按预留记录对账后清除标记：修正抢购期间到期释放未计入的预留量，
+        // 本实例没有计数器时（开始抢购的实例已重启）丢失的未写回变化量也由此恢复
+        transactionTemplate.executeWithoutResult(status -> {
+            lockLevel(inventoryItemId, locationId);
+            inventoryLevelRepository.reconcileReservedQuantities(List.of(inventoryItemId), List.of(locationId));
+            inventoryLevelRepository.updateFlashSale(inventoryItemId, locationId, false);
+            inventoryService.refreshAvailability(List.of(inventoryItemId));
+        });
+    }
+
+    @Override
+    public ReservationDTO reserve(Long inventoryItemId, Long locationId, int quantity, Long lineItemId) {
+        if (quantity > maxQuantity) {
+            throw new BadRequestException("Flash sale reservations are limited to " + maxQuantity + " per request");
+        }
+        Counter counter = counters.get(new Key(inventoryItemId, locationId));
+        if (counter == null) {
+            throw new BadRequestException("Inventory item " + inventoryItemId + " at location " + locationId
+                    + " is not on flash sale");
+        }
+        ReservationLine line = new ReservationLine(inventoryItemId, locationId, quantity, lineItemId);
+        LocalDateTime expiresAt = reservationExpiryService.newExpiry();
+        Long reservationId;
+        counter.beginAdmission();
+        try {
+            if (!counter.tryReserve(quantity)) {
+                throw new InsufficientInventoryException("Insufficient stock for inventory item " + inventoryItemId);
+            }
+            try {
+                reservationId = inventoryLevelRepository.insertReservations(List.of(line), expiresAt).get(0);
+            } catch (RuntimeException e) {
+                counter.release(quantity);
+                throw e;
+            }
+        } finally {
+            counter.endAdmission();
+        }
+        reservationExpiryService.track(List.of(reservationId), expiresAt);
+
+        return ReservationDTO.builder()
+                .id(reservationId)
+                .inventory_item_id(inventoryItemId)
+                .location_id(locationId)
+                .quantity(quantity)
+                .line_item_id(lineItemId)
+                .expires_at(expiresAt)
+                .build();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventory.flash-sale.flush-interval-ms:200}")
+    public void flush() {
+        flush(counters.snapshot());
+    }
+
+    /**
+     * 启动时按预留记录对账，补齐上次停止前已准入但未写回的预留量，参与抢购的库存级别除外
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        transactionTemplate.executeWithoutResult(status ->
+                inventoryService.refreshAvailability(inventoryLevelRepository.reconcileAllReservedQuantities()));
+    }
+
+    /**
+     * 锁定库存项的所有库存级别，返回指定地点的库存级别，须在事务内调用
+     */
+    private StockLevel lockLevel(Long inventoryItemId, Long locationId) {
+        return inventoryLevelRepository.lockStockLevels(List.of(inventoryItemId)).stream()
+                .filter(stockLevel -> stockLevel.locationId().equals(locationId))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException(
+                        "No inventory level for item " + inventoryItemId + " at location " + locationId));
+    }
+    
+    private synchronized void flush(Map<Key, Counter> targets) {
+        Map<Key, Counter> ordered = new TreeMap<>(Key.LOCK_ORDER);
+        ordered.putAll(targets);
+
+        Map<Counter, Long> drained = new LinkedHashMap<>();
+        List<ReservationLine> deltas = new ArrayList<>();
+        Set<Long> inventoryItemIds = new TreeSet<>();
+        ordered.forEach((key, counter) -> {
+            long delta = counter.drain();
+            if (delta != 0) {
+                drained.put(counter, delta);
+                deltas.add(new ReservationLine(key.inventoryItemId(), key.locationId(), Math.toIntExact(delta), null));
+                inventoryItemIds.add(key.inventoryItemId());
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 一条 UPDATE ... FROM unnest 的行锁顺序取决于执行计划，先按 (库存项, 地点) 顺序加锁，
+                // 与批量预留、到期释放和库存调整的锁顺序一致
+                inventoryLevelRepository.lockStockLevels(inventoryItemIds);
+                inventoryLevelRepository.applyReservedDeltas(deltas);
+                inventoryService.refreshAvailability(inventoryItemIds);
+            });
+        } catch (RuntimeException e) {
+            drained.forEach(Counter::restore);
+            throw e;
+        }
+    }
+}
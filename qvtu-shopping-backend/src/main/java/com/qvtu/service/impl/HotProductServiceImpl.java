@@ -0,0 +1,103 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.service.HotProductService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热销产品榜
+ * 销量按小时汇总在 product_sales_hourly，每次刷新从订单明细重新汇总上次刷新所在小时至今的桶，
+ * 桶的值整体替换，重复汇总不会重复计数；榜单由汇总表计算，以不可变快照整体替换，请求只读取快照。
+ * 订单在事务提交后才可见，刷新越过某个小时之后才提交的订单由每天一次的全量重建补齐
+ */
+@Service
+public class HotProductServiceImpl implements HotProductService {
+    
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSize;
+    
+    private volatile Map<Window, List<Long>> ranking = Collections.emptyMap();
+    // 下一次刷新重新汇总的起始小时，尚未汇总过时为null
+    private LocalDateTime rollupSince;
+    
+    public HotProductServiceImpl(ProductRepository productRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${app.hot-products.max-size:100}") int maxSize) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSize = maxSize;
+    }
+    
+    @Override
+    public List<Long> getHotProductIds(Window window, int limit) {
+        List<Long> productIds = ranking.getOrDefault(window, Collections.emptyList());
+        return productIds.subList(0, Math.max(0, Math.min(limit, productIds.size())));
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${app.hot-products.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = rollupSince != null ? rollupSince : oldestBucket(now);
+        transactionTemplate.executeWithoutResult(status -> productRepository.rollupSales(since, now));
+        // 当前小时尚未结束，下一次刷新从它开始重新汇总
+        rollupSince = now.truncatedTo(ChronoUnit.HOURS);
+        updateRanking(now);
+    }
+    
+    @Override
+    @Scheduled(cron = "${app.hot-products.rebuild-cron:0 30 3 * * *}")
+    public synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = oldestBucket(now);
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.deleteSalesBefore(since);
+            productRepository.rollupSales(since, now);
+        });
+        rollupSince = now.truncatedTo(ChronoUnit.HOURS);
+        updateRanking(now);
+    }
+    
+    /**
+     * 启动后重建汇总表，覆盖服务停止期间的订单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    private void updateRanking(LocalDateTime now) {
+        Map<Window, List<Long>> snapshot = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            LocalDateTime since = now.minus(window.getDuration()).truncatedTo(ChronoUnit.HOURS);
+            snapshot.put(window, List.copyOf(productRepository.findTopSellingProductIds(since, maxSize)));
+        }
+        ranking = Collections.unmodifiableMap(snapshot);
+    }
+    
+    /**
+     * 最长时间窗口覆盖的最早小时桶
+     */
+    private static LocalDateTime oldestBucket(LocalDateTime now) {
+        Window longest = Window.values()[0];
+        for (Window window : Window.values()) {
+            if (window.getDuration().compareTo(longest.getDuration()) > 0) {
+                longest = window;
+            }
+        }
+        return now.minus(longest.getDuration()).truncatedTo(ChronoUnit.HOURS);
+    }
+}
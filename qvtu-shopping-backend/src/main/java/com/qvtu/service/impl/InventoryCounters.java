@@ -0,0 +1,168 @@
+package com.qvtu.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 抢购库存计数器
+ * 每个参与抢购的 (库存项, 地点) 持有一个基于CAS的可售计数器，预留在内存中准入或拒绝，
+ * 不再争用 inventory_levels 的同一行锁；已准入但尚未写回的净变化量由定时任务批量写回。
+ * 计数器只存在于当前实例，同一库存项的抢购流量须路由到同一实例；
+ * 其他实例通过 inventory_levels 上的抢购标记得知库存级别正在参与抢购
+ */
+@Component
+class InventoryCounters {
+
+    record Key(Long inventoryItemId, Long locationId) {
+
+        // 与批量预留锁定库存级别的顺序一致
+        static final Comparator<Key> LOCK_ORDER =
+                Comparator.comparing(Key::inventoryItemId).thenComparing(Key::locationId);
+    }
+
+    static final class Counter {
+
+        // 关闭后的可售量，任何预留都无法通过
+        private static final long CLOSED = Long.MIN_VALUE / 2;
+
+        private final AtomicLong available;
+        private final AtomicLong unflushed = new AtomicLong();
+        // 准入到写入预留记录之间持有读锁，结束抢购取写锁等待进行中的准入
+        private final ReadWriteLock admissions = new ReentrantReadWriteLock();
+
+        Counter(long available) {
+            this.available = new AtomicLong(available);
+        }
+
+        /**
+         * 尝试预留，可售量不足时不做任何扣减
+         * 先累加待写回量再扣减可售量：关闭后取出的待写回量一定包含关闭前所有成功的预留
+         * @param quantity 预留数量
+         * @return 是否准入
+         */
+        boolean tryReserve(int quantity) {
+            unflushed.addAndGet(quantity);
+            long current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    unflushed.addAndGet(-quantity);
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        /**
+         * 归还已准入的预留，如写入预留记录失败时
+         * @param quantity 归还数量
+         */
+        void release(int quantity) {
+            available.addAndGet(quantity);
+            unflushed.addAndGet(-quantity);
+        }
+
+        /**
+         * 归还到期释放的预留，数据库中的预留量已在释放时减少，不计入待写回量
+         * @param quantity 归还数量
+         */
+        void credit(int quantity) {
+            available.addAndGet(quantity);
+        }
+
+        long available() {
+            return Math.max(available.get(), 0L);
+        }
+
+        /**
+         * 取出并清零待写回的净变化量
+         */
+        long drain() {
+            return unflushed.getAndSet(0L);
+        }
+
+        /**
+         * 写回失败时放回取出的变化量，下一轮重试
+         */
+        void restore(long delta) {
+            unflushed.addAndGet(delta);
+        }
+
+        /**
+         * 关闭计数器，此后的预留一律拒绝
+         */
+        void close() {
+            available.set(CLOSED);
+        }
+
+        /**
+         * 开始一次准入，须与 {@link #endAdmission()} 在同一线程成对调用，覆盖准入和写入预留记录
+         */
+        void beginAdmission() {
+            admissions.readLock().lock();
+        }
+
+        void endAdmission() {
+            admissions.readLock().unlock();
+        }
+
+        /**
+         * 等待进行中的准入结束，须在关闭后调用，返回后不会再有预留记录写入
+         */
+        void awaitAdmissions() {
+            admissions.writeLock().lock();
+            admissions.writeLock().unlock();
+        }
+    }
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 为库存级别登记计数器，初始可售量为0，加载库存后调用 {@link #open} 开放
+     * @return 新登记的计数器，已登记时返回null
+     */
+    Counter register(Key key) {
+        Counter counter = new Counter(0L);
+        return counters.putIfAbsent(key, counter) == null ? counter : null;
+    }
+
+    /**
+     * 以加载到的可售量开放新登记的计数器
+     */
+    void open(Counter counter, long available) {
+        counter.available.addAndGet(available);
+    }
+
+    Counter get(Key key) {
+        return counters.get(key);
+    }
+
+    /**
+     * 注销并关闭计数器
+     * @return 被注销的计数器，未登记时返回null
+     */
+    Counter remove(Key key) {
+        Counter counter = counters.remove(key);
+        if (counter != null) {
+            counter.close();
+        }
+        return counter;
+    }
+
+    /**
+     * 重新登记已关闭的计数器，用于写回失败后保留待写回量
+     */
+    void reinstate(Key key, Counter counter) {
+        counters.putIfAbsent(key, counter);
+    }
+
+    Map<Key, Counter> snapshot() {
+        return Map.copyOf(counters);
+    }
+}
@@ -0,0 +1,210 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.InventoryTotalsDTO;
+import com.qvtu.exception.ResourceNotFoundException;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.LevelTotals;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.Movement;
+import com.qvtu.service.InventoryProjectionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 库存汇总投影
+ * 启动时在一个可重复读快照中读取库存级别和最后一条流水ID作为起点，之后按ID顺序追读流水增量更新，
+ * 不再查询库存级别。起点之前可能有快照时尚未提交的流水，它们没有反映在读到的库存级别中，
+ * 按写入事务ID找出并在提交后补读，直到快照时运行中的事务全部结束。流水ID在写入时分配、提交顺序可能不同，遇到不连续的ID时不停下等待，
+ * 记下缺失的ID继续追读，之后每次追读时补读已提交的缺失流水；
+ * 缺失ID记录发现时分配的事务ID作为期限，早于期限的事务全部结束后仍未出现的ID即为回滚留下的空号
+ */
+@Service
+public class InventoryProjectionServiceImpl implements InventoryProjectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryProjectionServiceImpl.class);
+
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final TransactionTemplate snapshotTemplate;
+    private final int lowStockThreshold;
+    private final int batchSize;
+
+    private volatile InventoryProjections projections;
+    // 已读取的最大流水ID
+    private long position;
+    // 尚未读到的流水ID到期限的映射，期限之前的事务都结束后该ID不会再出现
+    private final Map<Long, Long> missing = new HashMap<>();
+    // 重建时的快照和起点，快照时运行中的事务都结束前不为null
+    private Start start;
+    // 已补读的快照时未提交的流水ID
+    private final Set<Long> startApplied = new HashSet<>();
+
+    public InventoryProjectionServiceImpl(InventoryLevelRepository inventoryLevelRepository,
+                                          TransactionTemplate transactionTemplate,
+                                          @Value("${app.inventory.low-stock-threshold:10}") int lowStockThreshold,
+                                          @Value("${app.inventory.projections.batch-size:1000}") int batchSize) {
+        this.inventoryLevelRepository = inventoryLevelRepository;
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.lowStockThreshold = lowStockThreshold;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public InventoryTotalsDTO getVariantTotals(Long variantId) {
+        return current().variant(variantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory totals", "variant_id", variantId));
+    }
+
+    @Override
+    public InventoryTotalsDTO getLocationTotals(Long locationId) {
+        return current().location(locationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory totals", "location_id", locationId));
+    }
+
+    @Override
+    public List<InventoryTotalsDTO> getLowStockVariants() {
+        return current().lowStock();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventory.projections.poll-interval-ms:500}")
+    public synchronized int poll() {
+        InventoryProjections target = projections;
+        if (target == null) {
+            return 0;
+        }
+        int applied = pollStart(target) + pollMissing(target);
+        List<Movement> movements;
+        do {
+            movements = inventoryLevelRepository.findMovementsAfter(position, batchSize);
+            List<Long> gaps = new ArrayList<>();
+            for (Movement movement : movements) {
+                for (long id = position + 1; id < movement.id(); id++) {
+                    gaps.add(id);
+                }
+                position = movement.id();
+                apply(target, movement);
+                applied++;
+            }
+            if (!gaps.isEmpty()) {
+                // 缺失ID的写入事务在读到其后的流水之前已分配事务ID，必然早于此时分配的事务ID
+                long deadline = inventoryLevelRepository.assignTransactionId();
+                gaps.forEach(id -> missing.put(id, deadline));
+            }
+        } while (movements.size() == batchSize);
+        return applied;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventory.projections.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.inventory.projections.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        InventoryProjections rebuilt = new InventoryProjections(lowStockThreshold);
+        Start snapshot = snapshotTemplate.execute(status -> {
+            // 同一快照中读取，起点之前在快照中可见的流水都已反映在库存级别中
+            String current = inventoryLevelRepository.findCurrentSnapshot();
+            long lastId = inventoryLevelRepository.findLastMovementId();
+            for (LevelTotals level : inventoryLevelRepository.findLevelTotals()) {
+                rebuilt.apply(level.variantId(), level.locationId(),
+                        level.stockLevel(), level.reservedQuantity(), level.incomingQuantity());
+            }
+            return new Start(current, lastId, 0L);
+        });
+        // 快照时运行中的事务都早于快照结束后分配的事务ID
+        start = new Start(snapshot.snapshot(), snapshot.lastId(), inventoryLevelRepository.assignTransactionId());
+        startApplied.clear();
+        position = snapshot.lastId();
+        missing.clear();
+        projections = rebuilt;
+        logger.info("Inventory projections rebuilt at movement {}, {} variants below stock threshold",
+                position, rebuilt.lowStock().size());
+    }
+
+    /**
+     * 启动时建立初始汇总
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 补读快照时尚未提交的流水，快照时运行中的事务都结束后最后补读一次，之后不再检查
+     */
+    private int pollStart(InventoryProjections target) {
+        if (start == null) {
+            return 0;
+        }
+        long oldestRunning = inventoryLevelRepository.findOldestRunningTransactionId();
+        int applied = 0;
+        for (Movement movement : inventoryLevelRepository.findMovementsInvisibleIn(start.snapshot(), start.lastId())) {
+            if (startApplied.add(movement.id())) {
+                apply(target, movement);
+                applied++;
+            }
+        }
+        if (start.deadline() <= oldestRunning) {
+            start = null;
+            startApplied.clear();
+        }
+        return applied;
+    }
+
+    /**
+     * 补读缺失的流水，并丢弃期限之前的事务都已结束仍未出现的ID
+     * 先查询最早运行中的事务再读流水，读不到的ID所属事务在查询前已经结束，只能是回滚
+     */
+    private int pollMissing(InventoryProjections target) {
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        long oldestRunning = inventoryLevelRepository.findOldestRunningTransactionId();
+        int applied = 0;
+        for (Movement movement : inventoryLevelRepository.findMovementsByIds(missing.keySet())) {
+            missing.remove(movement.id());
+            apply(target, movement);
+            applied++;
+        }
+        missing.values().removeIf(deadline -> deadline <= oldestRunning);
+        return applied;
+    }
+
+    private void apply(InventoryProjections target, Movement movement) {
+        if (target.apply(movement.variantId(), movement.locationId(),
+                movement.stockDelta(), movement.reservedDelta(), movement.incomingDelta())) {
+            logger.warn("Low stock: variant {} fell below {} available after {} movement {}",
+                    movement.variantId(), lowStockThreshold, movement.type(), movement.id());
+        }
+    }
+
+    /**
+     * 重建时的起点
+     * @param snapshot 读取库存级别的快照
+     * @param lastId 快照中可见的最大流水ID
+     * @param deadline 快照结束后分配的事务ID，早于它的事务都结束后快照时未提交的流水都已可见
+     */
+    private record Start(String snapshot, long lastId, long deadline) {
+    }
+
+    private InventoryProjections current() {
+        InventoryProjections current = projections;
+        if (current == null) {
+            throw new IllegalStateException("Inventory projections are not initialized");
+        }
+        return current;
+    }
+}
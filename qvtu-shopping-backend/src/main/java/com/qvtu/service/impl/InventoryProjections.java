@@ -0,0 +1,88 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.InventoryTotalsDTO;
+
+import java.util.*;
+
+/**
+ * 由库存流水增量维护的汇总：每个变体、每个地点的库存数量、预留量和在途数量，以及低库存变体集合
+ * 只在调用方持有的单个写线程中修改，读取时复制，两者以本对象为锁
+ */
+final class InventoryProjections {
+
+    private final int lowStockThreshold;
+    private final Map<Long, Totals> byVariant = new HashMap<>();
+    private final Map<Long, Totals> byLocation = new HashMap<>();
+    private final Set<Long> lowStockVariants = new HashSet<>();
+
+    InventoryProjections(int lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    /**
+     * 计入一次变化
+     * @param variantId 产品变体ID，库存项未关联变体时为null，只计入地点汇总
+     * @param locationId 库存地点ID
+     * @return 变体可售量因本次变化跌破低库存阈值时返回true
+     */
+    synchronized boolean apply(Long variantId, Long locationId, int stockDelta, int reservedDelta, int incomingDelta) {
+        byLocation.computeIfAbsent(locationId, id -> new Totals()).add(stockDelta, reservedDelta, incomingDelta);
+        if (variantId == null) {
+            return false;
+        }
+        Totals totals = byVariant.computeIfAbsent(variantId, id -> new Totals());
+        totals.add(stockDelta, reservedDelta, incomingDelta);
+        if (totals.available() < lowStockThreshold) {
+            return lowStockVariants.add(variantId);
+        }
+        lowStockVariants.remove(variantId);
+        return false;
+    }
+
+    synchronized Optional<InventoryTotalsDTO> variant(Long variantId) {
+        return Optional.ofNullable(byVariant.get(variantId)).map(totals -> totals.toDTO(variantId, null));
+    }
+
+    synchronized Optional<InventoryTotalsDTO> location(Long locationId) {
+        return Optional.ofNullable(byLocation.get(locationId)).map(totals -> totals.toDTO(null, locationId));
+    }
+
+    /**
+     * 低库存变体，按可售量从低到高排列
+     */
+    synchronized List<InventoryTotalsDTO> lowStock() {
+        return lowStockVariants.stream()
+                .map(variantId -> byVariant.get(variantId).toDTO(variantId, null))
+                .sorted(Comparator.comparing(InventoryTotalsDTO::getAvailable)
+                        .thenComparing(InventoryTotalsDTO::getVariant_id))
+                .toList();
+    }
+
+    private static final class Totals {
+
+        private int stockLevel;
+        private int reservedQuantity;
+        private int incomingQuantity;
+
+        void add(int stockDelta, int reservedDelta, int incomingDelta) {
+            stockLevel += stockDelta;
+            reservedQuantity += reservedDelta;
+            incomingQuantity += incomingDelta;
+        }
+
+        int available() {
+            return stockLevel - reservedQuantity;
+        }
+
+        InventoryTotalsDTO toDTO(Long variantId, Long locationId) {
+            return InventoryTotalsDTO.builder()
+                    .variant_id(variantId)
+                    .location_id(locationId)
+                    .stock_level(stockLevel)
+                    .reserved_quantity(reservedQuantity)
+                    .incoming_quantity(incomingQuantity)
+                    .available(available())
+                    .build();
+        }
+    }
+}
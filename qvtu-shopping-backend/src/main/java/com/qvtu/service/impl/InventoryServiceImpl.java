@@ -0,0 +1,61 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.VariantAvailabilityDTO;
+import com.qvtu.event.ProductChangedEvent;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.ProductVariantRepository;
+import com.qvtu.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 库存服务
+ * 库存级别的每次变化都在同一事务内重新计算对应变体的可售数量（ProductVariant.inventoryQuantity），
+ * 商品页和购物车校验按变体主键读取该字段，不再连接库存项和库存级别
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class InventoryServiceImpl implements InventoryService {
+    
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<VariantAvailabilityDTO> getAvailability(Collection<Long> variantIds) {
+        if (variantIds.isEmpty()) {
+            return List.of();
+        }
+        return productVariantRepository.findAvailabilityByIdIn(variantIds).stream()
+                .map(variant -> VariantAvailabilityDTO.builder()
+                        .variant_id(variant.getId())
+                        .inventory_quantity(variant.getInventoryQuantity())
+                        .allow_backorder(variant.getAllowBackorder())
+                        .manage_inventory(variant.getManageInventory())
+                        .in_stock(variant.getInventoryQuantity() > 0
+                                || Boolean.TRUE.equals(variant.getAllowBackorder())
+                                || Boolean.FALSE.equals(variant.getManageInventory()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public void refreshAvailability(Collection<Long> inventoryItemIds) {
+        if (inventoryItemIds.isEmpty()) {
+            return;
+        }
+        // 只有有货状态变化才刷新产品缓存，避免抢购时每次预留都使产品缓存失效
+        for (Long productId : productVariantRepository.refreshInventoryQuantities(new TreeSet<>(inventoryItemIds))) {
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        }
+    }
+}
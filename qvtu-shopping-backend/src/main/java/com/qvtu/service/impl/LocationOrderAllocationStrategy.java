@@ -0,0 +1,33 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.AllocationStrategy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按地点ID顺序出货：先用完编号靠前的地点，再使用后面的地点
+ */
+@Component("locationOrder")
+public class LocationOrderAllocationStrategy implements AllocationStrategy {
+    
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<StockLevel> levels) {
+        Map<Long, Integer> allocation = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (StockLevel level : levels) {
+            if (remaining == 0) {
+                break;
+            }
+            if (level.available() > 0) {
+                int taken = Math.min(remaining, level.available());
+                allocation.put(level.locationId(), taken);
+                remaining -= taken;
+            }
+        }
+        return remaining == 0 ? allocation : Map.of();
+    }
+}
@@ -0,0 +1,42 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.AllocationStrategy;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 优先单一地点出货：能由一个地点满足时选可用库存最多的地点，
+ * 否则从可用库存最多的地点开始依次拆分
+ */
+@Component("mostAvailable")
+public class MostAvailableAllocationStrategy implements AllocationStrategy {
+    
+    private static final Comparator<StockLevel> MOST_AVAILABLE = Comparator
+            .comparingInt(StockLevel::available).reversed()
+            .thenComparing(StockLevel::locationId);
+    
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<StockLevel> levels) {
+        List<StockLevel> sorted = levels.stream().sorted(MOST_AVAILABLE).toList();
+        if (!sorted.isEmpty() && sorted.get(0).available() >= quantity) {
+            return Map.of(sorted.get(0).locationId(), quantity);
+        }
+        
+        Map<Long, Integer> allocation = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (StockLevel level : sorted) {
+            if (remaining == 0 || level.available() <= 0) {
+                break;
+            }
+            int taken = Math.min(remaining, level.available());
+            allocation.put(level.locationId(), taken);
+            remaining -= taken;
+        }
+        return remaining == 0 ? allocation : Map.of();
+    }
+}
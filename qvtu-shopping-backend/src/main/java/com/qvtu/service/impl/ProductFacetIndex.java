@@ -0,0 +1,278 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.ProductFacetQuery;
+import com.qvtu.dto.ProductFacetsDTO;
+import com.qvtu.repository.ProductRepositoryCustom.FacetSource;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 上架产品的内存分面索引
+ * 每个产品分配一个递增的文档号，分类、选项值、价格区间和库存状态各自维护一个位图倒排表，
+ * 筛选和计数都是位图的与/或运算；产品按文档号倒序返回，即按首次建立索引的时间由新到旧。
+ * 单个产品变更时只清除并重设该产品所在的位，不重建整个索引
+ */
+final class ProductFacetIndex {
+    
+    /**
+     * 查询结果
+     * @param productIds 当前页的产品ID
+     * @param total 匹配的产品总数
+     * @param facets 分面计数
+     */
+    record Result(List<Long> productIds, int total, ProductFacetsDTO facets) {
+    }
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final List<BigDecimal> priceBreaks;
+    private final List<String> priceLabels;
+    
+    private final Map<Long, Integer> docIds = new HashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<BigDecimal> minPrices = new ArrayList<>();
+    // 每个文档所在的倒排表，删除或更新时据此清除对应的位
+    private final List<List<BitSet>> docPostings = new ArrayList<>();
+    
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> categories = new HashMap<>();
+    private final Map<String, Map<String, BitSet>> options = new HashMap<>();
+    private final List<BitSet> priceBuckets = new ArrayList<>();
+    
+    /**
+     * @param priceBreaks 价格区间分界点，升序，第一个区间从0开始
+     */
+    ProductFacetIndex(List<BigDecimal> priceBreaks) {
+        this.priceBreaks = List.copyOf(priceBreaks);
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : this.priceBreaks) {
+            labels.add(lower.toPlainString() + "-" + upper.toPlainString());
+            lower = upper;
+        }
+        labels.add(lower.toPlainString() + "+");
+        this.priceLabels = List.copyOf(labels);
+        for (int i = 0; i < priceLabels.size(); i++) {
+            priceBuckets.add(new BitSet());
+        }
+    }
+    
+    /**
+     * 写入或更新产品
+     * @param source 产品分面属性
+     */
+    void put(FacetSource source) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(source.productId());
+            if (docId == null) {
+                docId = productIds.size();
+                docIds.put(source.productId(), docId);
+                productIds.add(source.productId());
+                minPrices.add(null);
+                docPostings.add(new ArrayList<>());
+            } else {
+                clear(docId);
+            }
+            
+            List<BitSet> postings = docPostings.get(docId);
+            postings.add(live);
+            if (source.inStock()) {
+                postings.add(inStock);
+            }
+            for (Long categoryId : source.categoryIds()) {
+                postings.add(categories.computeIfAbsent(categoryId, key -> new BitSet()));
+            }
+            source.options().forEach((title, values) -> {
+                Map<String, BitSet> valuePostings = options.computeIfAbsent(title, key -> new HashMap<>());
+                for (String value : values) {
+                    postings.add(valuePostings.computeIfAbsent(value, key -> new BitSet()));
+                }
+            });
+            minPrices.set(docId, source.minPrice());
+            if (source.minPrice() != null) {
+                postings.add(priceBuckets.get(priceBucket(source.minPrice())));
+            }
+            for (BitSet posting : postings) {
+                posting.set(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 移除产品，产品下架或删除时调用
+     * @param productId 产品ID
+     */
+    void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(productId);
+            if (docId != null) {
+                clear(docId);
+                minPrices.set(docId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 按筛选条件查询一页产品并计算分面计数
+     * @param query 筛选条件
+     * @param offset 偏移量
+     * @param limit 最大数量
+     * @return 查询结果
+     */
+    Result query(ProductFacetQuery query, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            // 分类条件为null表示不按分类筛选，空集合表示不匹配任何产品
+            BitSet categoryFilter = query.getCategory_ids() != null
+                    ? union(query.getCategory_ids().stream().map(categories::get).toList())
+                    : null;
+            Map<String, BitSet> optionFilters = new HashMap<>();
+            if (query.getOptions() != null) {
+                query.getOptions().forEach((title, values) -> {
+                    Map<String, BitSet> valuePostings = options.getOrDefault(title, Map.of());
+                    optionFilters.put(title, union(values.stream().map(valuePostings::get).toList()));
+                });
+            }
+            BitSet priceFilter = query.getPrice_min() != null || query.getPrice_max() != null
+                    ? priceRange(query.getPrice_min(), query.getPrice_max())
+                    : null;
+            BitSet stockFilter = Boolean.TRUE.equals(query.getIn_stock()) ? inStock : null;
+            
+            // 每个分面的计数排除自身的筛选条件，用户仍能看到同一分面下的其他可选值
+            Map<Long, Integer> categoryCounts = new HashMap<>();
+            BitSet base = intersect(null, optionFilters, null, priceFilter, stockFilter);
+            categories.forEach((categoryId, posting) -> putCount(categoryCounts, categoryId, base, posting));
+            
+            Map<String, Map<String, Integer>> optionCounts = new HashMap<>();
+            options.forEach((title, valuePostings) -> {
+                BitSet optionBase = intersect(categoryFilter, optionFilters, title, priceFilter, stockFilter);
+                Map<String, Integer> counts = new HashMap<>();
+                valuePostings.forEach((value, posting) -> putCount(counts, value, optionBase, posting));
+                if (!counts.isEmpty()) {
+                    optionCounts.put(title, counts);
+                }
+            });
+            
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            BitSet priceBase = intersect(categoryFilter, optionFilters, null, null, stockFilter);
+            for (int i = 0; i < priceBuckets.size(); i++) {
+                putCount(priceCounts, priceLabels.get(i), priceBase, priceBuckets.get(i));
+            }
+            
+            BitSet stockBase = intersect(categoryFilter, optionFilters, null, priceFilter, null);
+            stockBase.and(inStock);
+            
+            BitSet matches = intersect(categoryFilter, optionFilters, null, priceFilter, stockFilter);
+            List<Long> page = new ArrayList<>(Math.max(0, limit));
+            long skipped = 0;
+            for (int docId = matches.length() - 1; docId >= 0 && page.size() < limit;
+                 docId = matches.previousSetBit(docId - 1)) {
+                if (skipped++ >= offset) {
+                    page.add(productIds.get(docId));
+                }
+            }
+            
+            ProductFacetsDTO facets = ProductFacetsDTO.builder()
+                    .categories(categoryCounts)
+                    .options(optionCounts)
+                    .prices(priceCounts)
+                    .in_stock(stockBase.cardinality())
+                    .build();
+            return new Result(page, matches.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void clear(int docId) {
+        List<BitSet> postings = docPostings.get(docId);
+        for (BitSet posting : postings) {
+            posting.clear(docId);
+        }
+        postings.clear();
+    }
+    
+    private BitSet intersect(BitSet categoryFilter, Map<String, BitSet> optionFilters, String excludedOption,
+                             BitSet priceFilter, BitSet stockFilter) {
+        BitSet result = (BitSet) live.clone();
+        if (categoryFilter != null) {
+            result.and(categoryFilter);
+        }
+        optionFilters.forEach((title, filter) -> {
+            if (!title.equals(excludedOption)) {
+                result.and(filter);
+            }
+        });
+        if (priceFilter != null) {
+            result.and(priceFilter);
+        }
+        if (stockFilter != null) {
+            result.and(stockFilter);
+        }
+        return result;
+    }
+    
+    /**
+     * 价格区间筛选，完整落在区间内的价格桶直接合并，边界桶逐个比较文档的最低价格
+     */
+    private BitSet priceRange(BigDecimal min, BigDecimal max) {
+        BitSet result = new BitSet();
+        for (int i = 0; i < priceBuckets.size(); i++) {
+            BigDecimal lower = i == 0 ? BigDecimal.ZERO : priceBreaks.get(i - 1);
+            BigDecimal upper = i < priceBreaks.size() ? priceBreaks.get(i) : null;
+            if ((max != null && lower.compareTo(max) > 0) || (min != null && upper != null && upper.compareTo(min) <= 0)) {
+                continue;
+            }
+            BitSet bucket = priceBuckets.get(i);
+            boolean covered = (min == null || lower.compareTo(min) >= 0) && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (covered) {
+                result.or(bucket);
+                continue;
+            }
+            for (int docId = bucket.nextSetBit(0); docId >= 0; docId = bucket.nextSetBit(docId + 1)) {
+                BigDecimal price = minPrices.get(docId);
+                if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                    result.set(docId);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private int priceBucket(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBreaks.size() && price.compareTo(priceBreaks.get(bucket)) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    private static BitSet union(Collection<BitSet> postings) {
+        BitSet result = new BitSet();
+        for (BitSet posting : postings) {
+            if (posting != null) {
+                result.or(posting);
+            }
+        }
+        return result;
+    }
+    
+    private static <K> void putCount(Map<K, Integer> counts, K key, BitSet base, BitSet posting) {
+        BitSet matched = (BitSet) posting.clone();
+        matched.and(base);
+        int count = matched.cardinality();
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.ProductFacetQuery;
+import com.qvtu.event.ProductChangedEvent;
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.repository.ProductRepositoryCustom.FacetSource;
+import com.qvtu.service.CategoryService;
+import com.qvtu.service.ProductFacetService;
+import com.qvtu.service.ProductService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 产品分面筛选服务
+ * 启动时从数据库构建 {@link ProductFacetIndex}，之后产品变更提交时只更新该产品的位，
+ * 分类页的计数不再需要逐请求执行GROUP BY。变更事件只在本实例发布，其他实例的变更由定时全量重建同步；
+ * 重建期间发生的变更记录下来，新索引替换后重新加载这些产品
+ */
+@Service
+public class ProductFacetServiceImpl implements ProductFacetService {
+    
+    private static final int LOAD_BATCH_SIZE = 1000;
+    
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final CategoryService categoryService;
+    private final List<BigDecimal> priceBreaks;
+    
+    private volatile ProductFacetIndex index;
+    private final Object changesLock = new Object();
+    // 重建期间变更的产品ID，不在重建时为null
+    private Set<Long> changedDuringRebuild;
+    
+    public ProductFacetServiceImpl(ProductRepository productRepository,
+                                   ProductService productService,
+                                   CategoryService categoryService,
+                                   @Value("${app.facets.price-breaks:50,100,200,500,1000}") List<BigDecimal> priceBreaks) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.priceBreaks = priceBreaks.stream().sorted().toList();
+        this.index = new ProductFacetIndex(this.priceBreaks);
+    }
+    
+    @Override
+    public Result filter(ProductFacetQuery query, Pageable pageable) {
+        if (query.getCategory_ids() != null && !query.getCategory_ids().isEmpty()) {
+            // 选中分类时同时匹配其子孙分类下的产品；所选分类都不存在时保留空集合，不匹配任何产品
+            Set<Long> categoryIds = new HashSet<>();
+            for (Long categoryId : query.getCategory_ids()) {
+                categoryIds.addAll(categoryService.getDescendantIds(categoryId));
+            }
+            query.setCategory_ids(categoryIds);
+        } else {
+            query.setCategory_ids(null);
+        }
+        ProductFacetIndex.Result result = index.query(query, pageable.getOffset(), pageable.getPageSize());
+        return new Result(
+                new PageImpl<>(productService.findPublishedByIds(result.productIds()), pageable, result.total()),
+                result.facets());
+    }
+    
+    @Override
+    @Scheduled(fixedDelayString = "${app.facets.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.facets.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        synchronized (changesLock) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        ProductFacetIndex rebuilt = new ProductFacetIndex(priceBreaks);
+        List<Long> productIds = productRepository.findPublishedProductIds();
+        for (int from = 0; from < productIds.size(); from += LOAD_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, productIds.size()));
+            productRepository.findFacetSources(batch).forEach(rebuilt::put);
+        }
+        // 重建读取的可能是变更之前的数据，替换后按当前数据重新加载
+        Set<Long> changed;
+        synchronized (changesLock) {
+            index = rebuilt;
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+        }
+        changed.forEach(this::refresh);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * 产品变更提交后更新其在索引中的位，产品下架或删除时从索引中移除
+     * @param event 产品变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (changesLock) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event.productId());
+            }
+        }
+        refresh(event.productId());
+    }
+    
+    private void refresh(Long productId) {
+        List<FacetSource> sources = productRepository.findFacetSources(List.of(productId));
+        ProductFacetIndex target = index;
+        if (sources.isEmpty()) {
+            target.remove(productId);
+        } else {
+            sources.forEach(target::put);
+        }
+    }
+}
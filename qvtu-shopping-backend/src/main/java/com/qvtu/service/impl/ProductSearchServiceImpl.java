@@ -0,0 +1,143 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.ProductDTO;
+import com.qvtu.event.ProductChangedEvent;
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.repository.ProductRepositoryCustom.SearchSource;
+import com.qvtu.service.ProductSearchService;
+import com.qvtu.service.ProductService;
+import com.qvtu.util.SearchTokenizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * 产品搜索服务
+ * 搜索文档由 {@link SearchTokenizer} 分词后以带权重的tsvector写入 product_search 表，
+ * 数据库只负责GIN索引匹配和排序，索引和查询的分词规则始终一致；
+ * 产品变更提交后增量重建对应文档，启动时补建缺失的文档
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSearchServiceImpl implements ProductSearchService {
+    
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int INDEX_BATCH_SIZE = 500;
+    // tsvector位置的最大值
+    private static final int MAX_POSITION = 16383;
+    
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    
+    @Override
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        String tsquery = toTsquery(query);
+        if (tsquery == null) {
+            return Page.empty(pageable);
+        }
+        List<Long> ids = productRepository.searchProductIds(tsquery, pageable.getOffset(), pageable.getPageSize());
+        long total = ids.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !ids.isEmpty())
+                ? pageable.getOffset() + ids.size()
+                : productRepository.countSearchResults(tsquery);
+        return new PageImpl<>(productService.findPublishedByIds(ids), pageable, total);
+    }
+    
+    @Override
+    public List<ProductDTO> autocomplete(String query, int limit) {
+        String tsquery = toTsquery(query);
+        if (tsquery == null) {
+            return List.of();
+        }
+        return productService.findPublishedByIds(productRepository.searchProductIds(tsquery, 0, limit));
+    }
+    
+    @Override
+    public void index(Collection<Long> productIds) {
+        Map<Long, String> documents = new LinkedHashMap<>();
+        for (SearchSource source : productRepository.findSearchSources(productIds)) {
+            documents.put(source.productId(), toTsvector(source));
+        }
+        productRepository.saveSearchDocuments(documents);
+        
+        List<Long> missing = new ArrayList<>(productIds);
+        missing.removeAll(documents.keySet());
+        productRepository.deleteSearchDocuments(missing);
+    }
+    
+    @Override
+    public int indexMissing() {
+        int indexed = 0;
+        List<Long> ids;
+        while (!(ids = productRepository.findUnindexedProductIds(INDEX_BATCH_SIZE)).isEmpty()) {
+            index(ids);
+            indexed += ids.size();
+        }
+        return indexed;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        indexMissing();
+    }
+    
+    /**
+     * 产品变更提交后重建其搜索文档
+     * @param event 产品变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        index(List.of(event.productId()));
+    }
+    
+    /**
+     * 将产品文本转换为tsvector文本，标题和handle权重为A，选项和SKU为B，描述为D
+     * @param source 产品文本
+     * @return tsvector文本
+     */
+    private static String toTsvector(SearchSource source) {
+        StringBuilder document = new StringBuilder();
+        int[] position = {1};
+        appendLexemes(document, SearchTokenizer.tokenize(Arrays.asList(source.title(), source.handle())), 'A', position);
+        appendLexemes(document, SearchTokenizer.tokenize(source.attributes()), 'B', position);
+        appendLexemes(document, SearchTokenizer.tokenize(source.description()), 'D', position);
+        return document.toString();
+    }
+    
+    private static void appendLexemes(StringBuilder document, List<String> tokens, char weight, int[] position) {
+        for (String token : tokens) {
+            if (document.length() > 0) {
+                document.append(' ');
+            }
+            document.append(quote(token)).append(':').append(position[0]).append(weight);
+            position[0] = Math.min(position[0] + 1, MAX_POSITION);
+        }
+    }
+    
+    /**
+     * 将关键词转换为tsquery文本，每个词按前缀匹配，词之间为与关系
+     * @param query 关键词
+     * @return tsquery文本，没有可用的词时返回null
+     */
+    private static String toTsquery(String query) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        StringJoiner tsquery = new StringJoiner(" & ");
+        for (String token : tokens.subList(0, Math.min(tokens.size(), MAX_QUERY_TERMS))) {
+            tsquery.add(quote(token) + ":*");
+        }
+        return tsquery.toString();
+    }
+    
+    private static String quote(String token) {
+        return "'" + token.replace("\\", "\\\\").replace("'", "''") + "'";
+    }
+}
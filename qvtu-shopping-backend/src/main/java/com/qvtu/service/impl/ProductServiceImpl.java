@@ -0,0 +1,337 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.config.CacheConfig;
+import com.qvtu.dto.*;
+import com.qvtu.event.CategoryChangedEvent;
+import com.qvtu.event.ProductChangedEvent;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.exception.ResourceNotFoundException;
+import com.qvtu.model.*;
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.service.CategoryService;
+import com.qvtu.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 产品目录服务
+ * 产品连同变体、选项、图片和分类整体映射为DTO后按ID缓存，读取时不再访问五张表；
+ * 管理端写操作发布 {@link ProductChangedEvent}，事务提交后失效对应缓存；分类变更提交后清空产品缓存
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProductServiceImpl implements ProductService {
+    
+    private final ProductRepository productRepository;
+    private final CategoryService categoryService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // 每次失效递增，加载期间发生过失效的读穿写入作废
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    @Override
+    public Page<ProductDTO> findPublished(Long categoryId, Pageable pageable) {
+        Page<Long> ids;
+        if (categoryId != null) {
+            // 分类页包含全部子孙分类下的产品，子孙分类ID从内存分类树读取
+            List<Long> categoryIds = categoryService.getDescendantIds(categoryId);
+            if (categoryIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            ids = productRepository.findPublishedIdsByCategoryIds(categoryIds, pageable);
+        } else {
+            ids = productRepository.findIdsByStatus(ProductStatus.PUBLISHED, pageable);
+        }
+        
+        return new PageImpl<>(findPublishedByIds(ids.getContent()), pageable, ids.getTotalElements());
+    }
+    
+    @Override
+    public List<ProductDTO> findPublishedByIds(List<Long> ids) {
+        Map<Long, ProductDTO> products = loadProducts(ids);
+        return ids.stream()
+                .map(products::get)
+                .filter(product -> product != null && isPublished(product))
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public ProductDTO findPublishedById(Long id) {
+        ProductDTO product = findById(id);
+        if (!isPublished(product)) {
+            throw new ResourceNotFoundException("Product", "id", id);
+        }
+        return product;
+    }
+    
+    @Override
+    public Optional<ProductDTO> findPublishedByHandle(String handle) {
+        Cache handles = cache(CacheConfig.PRODUCT_HANDLES);
+        Long id = handles.get(handle, Long.class);
+        if (id != null) {
+            ProductDTO product = loadProducts(List.of(id)).get(id);
+            if (product != null && handle.equals(product.getHandle())) {
+                return Optional.of(product).filter(this::isPublished);
+            }
+            // handle已被改给其他产品，丢弃旧映射后重新查询
+            handles.evictIfPresent(handle);
+        }
+        
+        id = productRepository.findIdByHandle(handle).orElse(null);
+        if (id == null) {
+            return Optional.empty();
+        }
+        handles.put(handle, id);
+        return Optional.ofNullable(loadProducts(List.of(id)).get(id)).filter(this::isPublished);
+    }
+    
+    @Override
+    public ProductDTO findById(Long id) {
+        ProductDTO product = loadProducts(List.of(id)).get(id);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", id);
+        }
+        return product;
+    }
+    
+    @Override
+    @Transactional
+    public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        
+        if (productDTO.getHandle() != null && !productDTO.getHandle().equals(product.getHandle())) {
+            productRepository.findIdByHandle(productDTO.getHandle())
+                    .filter(existingId -> !existingId.equals(id))
+                    .ifPresent(existingId -> {
+                        throw new BadRequestException("Product handle already exists: " + productDTO.getHandle());
+                    });
+            product.setHandle(productDTO.getHandle());
+        }
+        if (productDTO.getTitle() != null) {
+            product.setTitle(productDTO.getTitle());
+        }
+        if (productDTO.getDescription() != null) {
+            product.setDescription(productDTO.getDescription());
+        }
+        if (productDTO.getThumbnail() != null) {
+            product.setThumbnail(productDTO.getThumbnail());
+        }
+        if (productDTO.getStatus() != null) {
+            product.setStatus(productDTO.getStatus());
+        }
+        if (productDTO.getWeight() != null) {
+            product.setWeight(productDTO.getWeight());
+        }
+        if (productDTO.getIs_giftcard() != null) {
+            product.setIsGiftcard(productDTO.getIs_giftcard());
+        }
+        if (productDTO.getDiscountable() != null) {
+            product.setDiscountable(productDTO.getDiscountable());
+        }
+        if (productDTO.getMetadata() != null) {
+            product.setMetadata(productDTO.getMetadata());
+        }
+        
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return mapToProductDTO(savedProduct);
+    }
+    
+    @Override
+    @Transactional
+    public void deleteProduct(Long id) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        product.setDeletedAt(LocalDateTime.now());
+        productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+    }
+    
+    /**
+     * 产品变更提交后失效产品缓存及其handle映射
+     * 监听器在事务提交后执行，此时延迟失效已不会再被触发，因此直接调用立即失效
+     * 类上的只读事务不适用于提交后的监听器，这里显式声明不参与事务
+     * @param event 产品变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidations.incrementAndGet();
+        Cache products = cache(CacheConfig.PRODUCTS);
+        ProductDTO cached = products.get(event.productId(), ProductDTO.class);
+        if (cached != null && cached.getHandle() != null) {
+            cache(CacheConfig.PRODUCT_HANDLES).evictIfPresent(cached.getHandle());
+        }
+        products.evictIfPresent(event.productId());
+    }
+    
+    /**
+     * 分类变更提交后整体清空产品缓存，产品缓存中包含分类名称
+     * 与产品变更走同一失效计数，加载期间清空的读穿写入同样作废
+     * @param event 分类变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache(CacheConfig.PRODUCTS).invalidate();
+    }
+    
+    /**
+     * 按ID读取产品，未命中的产品一次性加载，子集合通过批量抓取初始化
+     * @param ids 产品ID
+     * @return 产品ID到产品信息的映射，不存在的ID不包含在内
+     */
+    private Map<Long, ProductDTO> loadProducts(Collection<Long> ids) {
+        Cache products = cache(CacheConfig.PRODUCTS);
+        Map<Long, ProductDTO> result = new HashMap<>(ids.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO cached = products.get(id, ProductDTO.class);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        
+        if (!misses.isEmpty()) {
+            // 读穿写入绕过事务感知装饰器：只读事务提交时才写入会覆盖期间已提交的失效
+            Cache target = products instanceof TransactionAwareCacheDecorator decorator
+                    ? decorator.getTargetCache()
+                    : products;
+            long generation = invalidations.get();
+            for (Product product : productRepository.findAllById(misses)) {
+                ProductDTO productDTO = mapToProductDTO(product);
+                target.put(product.getId(), productDTO);
+                result.put(product.getId(), productDTO);
+            }
+            // 加载期间有产品变更提交，写入的可能是旧版本
+            if (invalidations.get() != generation) {
+                misses.forEach(target::evictIfPresent);
+            }
+        }
+        return result;
+    }
+    
+    private boolean isPublished(ProductDTO product) {
+        return product.getStatus() == ProductStatus.PUBLISHED && product.getDeleted_at() == null;
+    }
+    
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+    
+    /**
+     * 将产品实体及其子集合映射为DTO
+     * @param product 产品实体
+     * @return 产品DTO
+     */
+    private ProductDTO mapToProductDTO(Product product) {
+        return ProductDTO.builder()
+                .id(product.getId())
+                .title(product.getTitle())
+                .handle(product.getHandle())
+                .description(product.getDescription())
+                .thumbnail(product.getThumbnail())
+                .status(product.getStatus())
+                .weight(product.getWeight())
+                .is_giftcard(product.getIsGiftcard())
+                .discountable(product.getDiscountable())
+                .metadata(product.getMetadata())
+                .variants(product.getVariants().stream()
+                        .filter(variant -> variant.getDeletedAt() == null)
+                        .map(this::mapToProductVariantDTO)
+                        .collect(Collectors.toList()))
+                .options(product.getOptions().stream()
+                        .filter(option -> option.getDeletedAt() == null)
+                        .map(this::mapToProductOptionDTO)
+                        .collect(Collectors.toList()))
+                .images(product.getImages().stream()
+                        .filter(image -> image.getDeletedAt() == null)
+                        .map(image -> ProductImageDTO.builder()
+                                .id(image.getId())
+                                .url(image.getUrl())
+                                .build())
+                        .collect(Collectors.toList()))
+                .categories(product.getCategories().stream()
+                        .filter(category -> category.getDeletedAt() == null)
+                        .map(category -> CategoryDTO.builder()
+                                .id(category.getId())
+                                .name(category.getName())
+                                .handle(category.getHandle())
+                                .parent_id(category.getParent() != null ? category.getParent().getId() : null)
+                                .rank(category.getRank())
+                                .build())
+                        .collect(Collectors.toList()))
+                .created_at(product.getCreatedAt())
+                .updated_at(product.getUpdatedAt())
+                .deleted_at(product.getDeletedAt())
+                .build();
+    }
+    
+    private ProductVariantDTO mapToProductVariantDTO(ProductVariant variant) {
+        return ProductVariantDTO.builder()
+                .id(variant.getId())
+                .title(variant.getTitle())
+                .sku(variant.getSku())
+                .barcode(variant.getBarcode())
+                .ean(variant.getEan())
+                .upc(variant.getUpc())
+                .price(variant.getPrice())
+                .compare_at_price(variant.getCompareAtPrice())
+                .inventory_quantity(variant.getInventoryQuantity())
+                .allow_backorder(variant.getAllowBackorder())
+                .manage_inventory(variant.getManageInventory())
+                .weight(variant.getWeight())
+                .length(variant.getLength())
+                .height(variant.getHeight())
+                .width(variant.getWidth())
+                .origin_country(variant.getOriginCountry())
+                .material(variant.getMaterial())
+                .metadata(variant.getMetadata())
+                .options(variant.getOptionValues().stream()
+                        .filter(value -> value.getDeletedAt() == null)
+                        .map(this::mapToProductOptionValueDTO)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private ProductOptionDTO mapToProductOptionDTO(ProductOption option) {
+        return ProductOptionDTO.builder()
+                .id(option.getId())
+                .title(option.getTitle())
+                .values(option.getValues().stream()
+                        .filter(value -> value.getDeletedAt() == null)
+                        .map(this::mapToProductOptionValueDTO)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private ProductOptionValueDTO mapToProductOptionValueDTO(ProductOptionValue value) {
+        return ProductOptionValueDTO.builder()
+                .id(value.getId())
+                .value(value.getValue())
+                .option_id(value.getOption() != null ? value.getOption().getId() : null)
+                .variant_id(value.getVariant() != null ? value.getVariant().getId() : null)
+                .build();
+    }
+}
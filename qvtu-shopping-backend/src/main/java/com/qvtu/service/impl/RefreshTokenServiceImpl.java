@@ -0,0 +1,151 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.auth.AuthResponse;
+import com.qvtu.exception.AuthenticationException;
+import com.qvtu.model.RefreshToken;
+import com.qvtu.model.RevokedToken;
+import com.qvtu.model.User;
+import com.qvtu.repository.RefreshTokenRepository;
+import com.qvtu.repository.RevokedTokenRepository;
+import com.qvtu.repository.TokenVersionChangeRepository;
+import com.qvtu.security.TokenRevocationList;
+import com.qvtu.service.RefreshTokenService;
+import com.qvtu.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenVersionChangeRepository tokenVersionChangeRepository;
+    private final TokenRevocationList tokenRevocationList;
+    private final JwtUtil jwtUtil;
+    
+    @Value("${app.jwt.refresh-expiration:2592000}")
+    private Long refreshExpiration;
+    
+    @Override
+    public String issueRefreshToken(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+    
+    @Override
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public AuthResponse refresh(String refreshToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
+        
+        // 已轮换过的令牌再次出现，说明令牌可能泄露，撤销整个家族
+        if (current.getRevokedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), LocalDateTime.now());
+            throw new AuthenticationException("Refresh token has been revoked");
+        }
+        
+        User user = current.getUser();
+        if (current.isExpired() || !user.isActive()
+                || !Objects.equals(current.getTokenVersion(), user.getTokenVersion())) {
+            current.setRevokedAt(LocalDateTime.now());
+            throw new AuthenticationException("Refresh token has expired");
+        }
+        
+        // 轮换：当前令牌作废，同一家族内签发新令牌
+        current.setRevokedAt(LocalDateTime.now());
+        String nextRefreshToken = issue(user, current.getFamilyId());
+        
+        return AuthResponse.builder()
+                .token(jwtUtil.generateToken(user))
+                .refreshToken(nextRefreshToken)
+                .message("Token refreshed")
+                .build();
+    }
+    
+    @Override
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null && !accessToken.isEmpty()) {
+            revokeAccessToken(accessToken);
+        }
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                    .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+        }
+    }
+    
+    /**
+     * 定时清理已过期的刷新令牌、撤销记录和令牌版本变更
+     */
+    @Scheduled(cron = "${app.jwt.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.deleteExpired(now);
+        revokedTokenRepository.deleteExpired(now);
+        tokenVersionChangeRepository.deleteExpired(now);
+    }
+    
+    private void revokeAccessToken(String accessToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseToken(accessToken);
+        } catch (JwtException e) {
+            // 已过期或无效的令牌无需撤销
+            return;
+        }
+        String jti = claims.getId();
+        if (jti == null || revokedTokenRepository.existsByJti(jti)) {
+            return;
+        }
+        
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setJti(jti);
+        revokedToken.setExpiresAt(LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+        revokedTokenRepository.save(revokedToken);
+        
+        tokenRevocationList.add(jti, claims.getExpiration().getTime());
+    }
+    
+    private String issue(User user, String familyId) {
+        byte[] randomBytes = new byte[32];
+        SECURE_RANDOM.nextBytes(randomBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(user);
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setTokenVersion(user.getTokenVersion() != null ? user.getTokenVersion() : 0L);
+        refreshToken.setExpiresAt(LocalDateTime.now().plusSeconds(refreshExpiration));
+        refreshTokenRepository.save(refreshToken);
+        
+        return token;
+    }
+    
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+} 
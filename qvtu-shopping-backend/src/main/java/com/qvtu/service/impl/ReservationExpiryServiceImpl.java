@@ -0,0 +1,164 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.ReservationLine;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.ReservationExpiryService;
+import com.qvtu.service.impl.InventoryCounters.Counter;
+import com.qvtu.service.impl.InventoryCounters.Key;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 预留到期释放
+ * 本实例创建的预留登记在内存时间轮中，每个刻度按主键释放到期的一批；
+ * 时间轮不持久化，定时按 expires_at 部分索引扫描已到期的预留兜底，启动时先扫描一次。
+ * 每批释放在一个事务内完成：标记预留记录删除、按 (库存项, 地点) 合并数量、按固定顺序锁定库存级别、
+ * 以一条语句减少预留量，最后刷新变体可售数量。
+ * 正在抢购的库存级别释放的数量在事务提交后同时归还本实例计数器的可售量
+ */
+@Service
+public class ReservationExpiryServiceImpl implements ReservationExpiryService {
+
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final InventoryService inventoryService;
+    private final InventoryCounters counters;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationTimingWheel timingWheel;
+    private final long ttlMillis;
+    private final int batchSize;
+
+    public ReservationExpiryServiceImpl(InventoryLevelRepository inventoryLevelRepository,
+                                        InventoryService inventoryService,
+                                        InventoryCounters counters,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${app.inventory.reservation-ttl-ms:900000}") long ttlMillis,
+                                        @Value("${app.inventory.expiry.tick-ms:1000}") long tickMillis,
+                                        @Value("${app.inventory.expiry.wheel-size:1024}") int wheelSize,
+                                        @Value("${app.inventory.expiry.wheel-capacity:1000000}") int wheelCapacity,
+                                        @Value("${app.inventory.expiry.batch-size:1000}") int batchSize) {
+        this.inventoryLevelRepository = inventoryLevelRepository;
+        this.inventoryService = inventoryService;
+        this.counters = counters;
+        this.transactionTemplate = transactionTemplate;
+        this.timingWheel = new ReservationTimingWheel(tickMillis, wheelSize, wheelCapacity, System.currentTimeMillis());
+        this.ttlMillis = ttlMillis;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public LocalDateTime newExpiry() {
+        return LocalDateTime.now().plus(ttlMillis, ChronoUnit.MILLIS);
+    }
+
+    @Override
+    public void track(List<Long> reservationIds, LocalDateTime expiresAt) {
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (Long reservationId : reservationIds) {
+            // 超出容量的预留只能等待索引扫描释放
+            if (!timingWheel.schedule(reservationId, expiresAtMillis)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventory.expiry.tick-ms:1000}")
+    public int releaseDue() {
+        List<Long> due = timingWheel.advance(System.currentTimeMillis());
+        int released = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            released += release(() -> inventoryLevelRepository.expireReservations(batch));
+        }
+        return released;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventory.expiry.scan-interval-ms:60000}",
+            initialDelayString = "${app.inventory.expiry.scan-interval-ms:60000}")
+    public int releaseExpired() {
+        int released = 0;
+        int count;
+        do {
+            count = release(() -> inventoryLevelRepository.expireDueReservations(batchSize));
+            released += count;
+        } while (count == batchSize);
+        return released;
+    }
+
+    /**
+     * 启动时释放停机期间到期的预留
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        releaseExpired();
+    }
+
+    /**
+     * 在一个事务内标记一批预留到期并减少对应库存级别的预留量
+     * @param expire 标记到期的语句，返回被释放的预留行
+     * @return 释放的预留条数
+     */
+    private int release(Supplier<List<ReservationLine>> expire) {
+        Map<Key, Integer> released = new TreeMap<>(Key.LOCK_ORDER);
+        Integer count = transactionTemplate.execute(status -> {
+            List<ReservationLine> lines = expire.get();
+            if (lines.isEmpty()) {
+                return 0;
+            }
+            for (ReservationLine line : lines) {
+                released.merge(new Key(line.inventoryItemId(), line.locationId()), line.quantity(), Integer::sum);
+            }
+            Set<Long> inventoryItemIds = new TreeSet<>();
+            List<ReservationLine> decrements = new ArrayList<>(released.size());
+            released.forEach((key, quantity) -> {
+                inventoryItemIds.add(key.inventoryItemId());
+                decrements.add(new ReservationLine(key.inventoryItemId(), key.locationId(), quantity, null));
+            });
+            List<StockLevel> levels = inventoryLevelRepository.lockStockLevels(inventoryItemIds);
+            if (inventoryLevelRepository.releaseAll(decrements) != decrements.size()) {
+                reconcileSkipped(released.keySet(), levels);
+            }
+            inventoryService.refreshAvailability(inventoryItemIds);
+            return lines.size();
+        });
+        // 提交后才归还，回滚的释放不会让计数器多卖
+        released.forEach((key, quantity) -> {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                counter.credit(quantity);
+            }
+        });
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * 预留量小于释放数量的库存级别不会被更新，而其预留记录已标记删除；按剩余预留记录重新计算这些库存级别。
+     * 参与抢购的库存级别可能还有未写回的变化量，留到结束抢购时对账
+     * @param keys 本批释放涉及的库存级别
+     * @param levels 已锁定的库存级别
+     */
+    private void reconcileSkipped(Set<Key> keys, List<StockLevel> levels) {
+        List<Long> itemIds = new ArrayList<>();
+        List<Long> locationIds = new ArrayList<>();
+        for (StockLevel level : levels) {
+            if (!level.flashSale() && keys.contains(new Key(level.inventoryItemId(), level.locationId()))) {
+                itemIds.add(level.inventoryItemId());
+                locationIds.add(level.locationId());
+            }
+        }
+        inventoryLevelRepository.reconcileReservedQuantities(itemIds, locationIds);
+    }
+}
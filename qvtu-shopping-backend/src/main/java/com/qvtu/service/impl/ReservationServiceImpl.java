@@ -0,0 +1,120 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.ReservationDTO;
+import com.qvtu.dto.ReservationRequest;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.exception.InsufficientInventoryException;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.ReservationLine;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.AllocationStrategy;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.ReservationExpiryService;
+import com.qvtu.service.ReservationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 库存预留引擎
+ * 一个事务内依次完成：按固定顺序锁定所有相关库存级别、按分配策略在内存中选定地点、
+ * 以一条语句批量增加预留量、以一条语句写入预留记录，最后刷新变体可售数量。
+ * 锁定后的分配基于一致的数据，批量更新仍带可用库存条件，任何一行未更新都会整体回滚
+ */
+@Service
+@Transactional
+public class ReservationServiceImpl implements ReservationService {
+    
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final InventoryService inventoryService;
+    private final AllocationStrategy allocationStrategy;
+    private final ReservationExpiryService reservationExpiryService;
+    
+    public ReservationServiceImpl(InventoryLevelRepository inventoryLevelRepository,
+                                  InventoryService inventoryService,
+                                  ReservationExpiryService reservationExpiryService,
+                                  Map<String, AllocationStrategy> strategies,
+                                  @Value("${app.inventory.allocation-strategy:mostAvailable}") String strategyName) {
+        this.inventoryLevelRepository = inventoryLevelRepository;
+        this.inventoryService = inventoryService;
+        this.reservationExpiryService = reservationExpiryService;
+        this.allocationStrategy = strategies.get(strategyName);
+        if (this.allocationStrategy == null) {
+            throw new IllegalStateException("Unknown allocation strategy: " + strategyName
+                    + ", available: " + strategies.keySet());
+        }
+    }
+    
+    @Override
+    public List<ReservationDTO> reserve(List<ReservationRequest.Item> items) {
+        Set<Long> inventoryItemIds = new TreeSet<>();
+        for (ReservationRequest.Item item : items) {
+            inventoryItemIds.add(item.getInventory_item_id());
+        }
+        
+        // 库存项ID -> 按地点ID排序的可用库存，分配后原地扣减，供同一库存项的后续行使用
+        Map<Long, List<StockLevel>> levelsByItem = new HashMap<>();
+        for (StockLevel level : inventoryLevelRepository.lockStockLevels(inventoryItemIds)) {
+            // 抢购标记在同样的行锁下设置，加锁之后检查，任何实例都不会与抢购计数器同时放行
+            if (level.flashSale()) {
+                throw new BadRequestException("Inventory item " + level.inventoryItemId() + " is on flash sale");
+            }
+            levelsByItem.computeIfAbsent(level.inventoryItemId(), key -> new ArrayList<>()).add(level);
+        }
+        
+        List<ReservationLine> reservations = new ArrayList<>();
+        for (ReservationRequest.Item item : items) {
+            List<StockLevel> levels = levelsByItem.getOrDefault(item.getInventory_item_id(), new ArrayList<>());
+            Map<Long, Integer> allocation = allocationStrategy.allocate(item.getQuantity(), List.copyOf(levels));
+            if (allocation.isEmpty()) {
+                throw new InsufficientInventoryException("Insufficient stock for inventory item " + item.getInventory_item_id());
+            }
+            allocation.forEach((locationId, quantity) -> {
+                reservations.add(new ReservationLine(item.getInventory_item_id(), locationId, quantity, item.getLine_item_id()));
+                levels.replaceAll(level -> level.locationId().equals(locationId)
+                        ? new StockLevel(level.inventoryItemId(), locationId, level.stockLevel(),
+                                level.reservedQuantity() + quantity, level.flashSale())
+                        : level);
+            });
+        }
+        
+        List<ReservationLine> updates = mergeByLocation(reservations);
+        if (inventoryLevelRepository.reserveAll(updates) != updates.size()) {
+            throw new InsufficientInventoryException("Insufficient stock for one or more inventory items");
+        }
+        LocalDateTime expiresAt = reservationExpiryService.newExpiry();
+        List<Long> reservationIds = inventoryLevelRepository.insertReservations(reservations, expiresAt);
+        inventoryService.refreshAvailability(inventoryItemIds);
+        reservationExpiryService.track(reservationIds, expiresAt);
+        
+        List<ReservationDTO> result = new ArrayList<>(reservations.size());
+        for (int i = 0; i < reservations.size(); i++) {
+            ReservationLine line = reservations.get(i);
+            result.add(ReservationDTO.builder()
+                    .id(reservationIds.get(i))
+                    .inventory_item_id(line.inventoryItemId())
+                    .location_id(line.locationId())
+                    .quantity(line.quantity())
+                    .line_item_id(line.orderItemId())
+                    .expires_at(expiresAt)
+                    .build());
+        }
+        return result;
+    }
+    
+    /**
+     * 合并同一 (库存项, 地点) 的数量，批量更新中每个库存级别只出现一次
+     */
+    private static List<ReservationLine> mergeByLocation(List<ReservationLine> lines) {
+        Map<List<Long>, Integer> merged = new LinkedHashMap<>();
+        for (ReservationLine line : lines) {
+            merged.merge(List.of(line.inventoryItemId(), line.locationId()), line.quantity(), Integer::sum);
+        }
+        List<ReservationLine> result = new ArrayList<>(merged.size());
+        merged.forEach((key, quantity) -> result.add(new ReservationLine(key.get(0), key.get(1), quantity, null)));
+        return result;
+    }
+}
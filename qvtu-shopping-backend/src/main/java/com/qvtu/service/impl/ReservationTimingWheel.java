@@ -0,0 +1,91 @@
+package com.qvtu.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预留到期时间轮
+ * 按到期时间所在的刻度散列到固定数量的槽，每个刻度只检查一个槽，登记和推进的代价与预留总数无关；
+ * 到期时间超过一圈的条目留在槽中，等到对应的圈数再取出。
+ * 时间轮只保存在内存中，推进时错过的条目、超出容量未登记的条目和其他实例创建的预留都由按到期时间的索引扫描兜底
+ */
+final class ReservationTimingWheel {
+
+    private record Entry(long reservationId, long expiresAtMillis) {
+    }
+
+    private final long tickMillis;
+    private final Queue<Entry>[] slots;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    // 已全部处理完的刻度，只由 advance 推进；当前刻度尚未结束，其中未到期的条目下次推进时还要检查
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    ReservationTimingWheel(long tickMillis, int wheelSize, int capacity, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.capacity = capacity;
+        this.currentTick = nowMillis / tickMillis - 1;
+    }
+
+    /**
+     * 登记预留的到期时间
+     * @return 是否登记成功，超出容量时返回false
+     */
+    boolean schedule(long reservationId, long expiresAtMillis) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        // 已到期的条目放入下一个待检查的刻度，避免等待整整一圈
+        long tick = Math.max(expiresAtMillis / tickMillis, currentTick + 1);
+        slots[slotOf(tick)].add(new Entry(reservationId, expiresAtMillis));
+        return true;
+    }
+
+    /**
+     * 推进到当前时间，取出所有已到期的预留
+     * @param nowMillis 当前时间（毫秒）
+     * @return 到期的预留记录ID
+     */
+    synchronized List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        // 落后超过一圈时每个槽只需检查一次
+        long fromTick = Math.max(currentTick + 1, targetTick - slots.length + 1);
+        List<Long> due = new ArrayList<>();
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Queue<Entry> slot = slots[slotOf(tick)];
+            List<Entry> pending = new ArrayList<>();
+            Entry entry;
+            while ((entry = slot.poll()) != null) {
+                if (entry.expiresAtMillis() <= nowMillis) {
+                    due.add(entry.reservationId());
+                } else {
+                    pending.add(entry);
+                }
+            }
+            slot.addAll(pending);
+        }
+        if (targetTick - 1 > currentTick) {
+            currentTick = targetTick - 1;
+        }
+        size.addAndGet(-due.size());
+        return due;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+}
@@ -0,0 +1,266 @@
+package com.qvtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qvtu.dto.StockAdjustmentResult;
+import com.qvtu.dto.StockAdjustmentRow;
+import com.qvtu.repository.InventoryItemRepository;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockDelta;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.StockAdjustmentService;
+import com.qvtu.service.impl.InventoryCounters.Key;
+import com.qvtu.util.RowReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量库存调整
+ * 输入按批读取，每批只查询一次本任务尚未解析过的SKU；同一库存级别的多行合并为净变化量，
+ * 按固定顺序锁定库存级别后在内存中校验，再以一条语句更新整批并刷新变体可售数量；
+ * 扣减后低于已预留数量的库存级别整组拒绝，批次失败时整批回滚并逐行报告原因
+ */
+@Service
+public class StockAdjustmentServiceImpl implements StockAdjustmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockAdjustmentServiceImpl.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryLevelRepository inventoryLevelRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public StockAdjustmentServiceImpl(InventoryItemRepository inventoryItemRepository,
+                                      InventoryLevelRepository inventoryLevelRepository,
+                                      InventoryService inventoryService,
+                                      TransactionTemplate transactionTemplate,
+                                      Validator validator,
+                                      ObjectMapper objectMapper,
+                                      @Value("${app.stock-adjustment.batch-size:1000}") int batchSize,
+                                      @Value("${app.stock-adjustment.max-reported-errors:1000}") int maxReportedErrors) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryLevelRepository = inventoryLevelRepository;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public StockAdjustmentResult adjust(InputStream input, Format format) throws IOException {
+        long startedAt = System.nanoTime();
+        AdjustmentJob job = new AdjustmentJob();
+
+        try (RowReader source = format == Format.NDJSON ? RowReader.ndjson(input, objectMapper) : RowReader.csv(input)) {
+            List<AdjustmentLine> batch = new ArrayList<>(batchSize);
+            RowReader.Row sourceRow;
+            while ((sourceRow = source.next()) != null) {
+                job.total++;
+                AdjustmentLine line = parse(sourceRow, job);
+                if (line != null) {
+                    batch.add(line);
+                }
+                if (batch.size() >= batchSize) {
+                    processBatch(batch, job);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                processBatch(batch, job);
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        double rowsPerSecond = elapsedMillis > 0 ? job.total * 1000.0 / elapsedMillis : job.total;
+        logger.info("Stock adjustment finished: {} rows, {} applied, {} failed in {} ms ({} rows/s)",
+                job.total, job.applied, job.failed, elapsedMillis, String.format("%.1f", rowsPerSecond));
+
+        return StockAdjustmentResult.builder()
+                .total(job.total)
+                .applied(job.applied)
+                .failed(job.failed)
+                .elapsed_ms(elapsedMillis)
+                .rows_per_second(rowsPerSecond)
+                .errors(job.errors)
+                .errors_truncated(job.failed > job.errors.size())
+                .build();
+    }
+
+    /**
+     * 转换并校验一行数据，格式错误或校验失败时记录错误
+     */
+    private AdjustmentLine parse(RowReader.Row sourceRow, AdjustmentJob job) {
+        if (sourceRow.error() != null) {
+            job.fail(sourceRow.rowNumber(), null, null, sourceRow.error());
+            return null;
+        }
+
+        StockAdjustmentRow data;
+        try {
+            data = objectMapper.convertValue(sourceRow.values(), StockAdjustmentRow.class);
+        } catch (IllegalArgumentException e) {
+            job.fail(sourceRow.rowNumber(), null, null, "Malformed row: " + e.getMessage());
+            return null;
+        }
+        if (data.getSku() != null) {
+            data.setSku(data.getSku().trim());
+        }
+
+        Set<ConstraintViolation<StockAdjustmentRow>> violations = validator.validate(data);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<StockAdjustmentRow> violation = violations.iterator().next();
+            job.fail(sourceRow.rowNumber(), data.getSku(), data.getLocation_id(),
+                    violation.getPropertyPath() + ": " + violation.getMessage());
+            return null;
+        }
+        return new AdjustmentLine(sourceRow.rowNumber(), data);
+    }
+
+    private void processBatch(List<AdjustmentLine> batch, AdjustmentJob job) {
+        resolveSkus(batch, job);
+
+        // 按加锁顺序分组，同一库存级别的多行合并为一个变化量
+        Map<Key, List<AdjustmentLine>> byLevel = new TreeMap<>(Key.LOCK_ORDER);
+        for (AdjustmentLine line : batch) {
+            Long inventoryItemId = job.skuIds.get(line.data().getSku());
+            if (inventoryItemId == null) {
+                job.fail(line, "Unknown SKU");
+                continue;
+            }
+            byLevel.computeIfAbsent(new Key(inventoryItemId, line.data().getLocation_id()), key -> new ArrayList<>())
+                    .add(line);
+        }
+        if (byLevel.isEmpty()) {
+            return;
+        }
+
+        Map<AdjustmentLine, String> rejected = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rejected.clear();
+                apply(byLevel, rejected);
+            });
+        } catch (RuntimeException e) {
+            // 整批已回滚，任何失败都按行报告，不中断后续批次
+            logger.warn("Stock adjustment batch of {} levels failed", byLevel.size(), e);
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            byLevel.values().forEach(lines -> lines.forEach(line -> job.fail(line, message)));
+            return;
+        }
+
+        rejected.forEach(job::fail);
+        byLevel.values().forEach(lines -> job.applied += lines.size());
+        job.applied -= rejected.size();
+    }
+
+    /**
+     * 一次查询本批中尚未解析过的SKU，结果在整个任务内复用
+     */
+    private void resolveSkus(List<AdjustmentLine> batch, AdjustmentJob job) {
+        Set<String> unresolved = new HashSet<>();
+        for (AdjustmentLine line : batch) {
+            if (!job.skuIds.containsKey(line.data().getSku())) {
+                unresolved.add(line.data().getSku());
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        for (InventoryItemRepository.SkuId skuId : inventoryItemRepository.findIdsBySkuIn(unresolved)) {
+            job.skuIds.put(skuId.getSku(), skuId.getId());
+        }
+        // 不存在的SKU也记录下来，后续批次不再查询
+        unresolved.forEach(sku -> job.skuIds.putIfAbsent(sku, null));
+    }
+
+    /**
+     * 锁定本批涉及的库存级别，在内存中校验后以一条语句更新，须在事务内调用
+     * @param byLevel 库存级别 -> 调整行
+     * @param rejected 收集被拒绝的行及原因
+     */
+    private void apply(Map<Key, List<AdjustmentLine>> byLevel, Map<AdjustmentLine, String> rejected) {
+        Set<Long> inventoryItemIds = new TreeSet<>();
+        byLevel.keySet().forEach(key -> inventoryItemIds.add(key.inventoryItemId()));
+
+        Map<Key, StockLevel> levels = new HashMap<>();
+        for (StockLevel level : inventoryLevelRepository.lockStockLevels(inventoryItemIds)) {
+            levels.put(new Key(level.inventoryItemId(), level.locationId()), level);
+        }
+
+        List<StockDelta> deltas = new ArrayList<>(byLevel.size());
+        Set<Long> adjustedItemIds = new TreeSet<>();
+        byLevel.forEach((key, lines) -> {
+            StockLevel level = levels.get(key);
+            int delta = lines.stream().mapToInt(line -> line.data().getDelta()).sum();
+            String reason = null;
+            if (level == null) {
+                reason = "No inventory level for item " + key.inventoryItemId() + " at location " + key.locationId();
+            } else if (level.flashSale()) {
+                // 加锁之后检查，与批量预留的抢购检查一致
+                reason = "Inventory item " + key.inventoryItemId() + " is on flash sale";
+            } else if (delta < 0 && level.stockLevel() + delta < level.reservedQuantity()) {
+                // 扣减不能让库存低于已预留数量，否则已准入的预留无货可发
+                reason = "Insufficient unreserved stock: " + level.stockLevel() + " on hand, "
+                        + level.reservedQuantity() + " reserved, net delta " + delta;
+            }
+            if (reason != null) {
+                for (AdjustmentLine line : lines) {
+                    rejected.put(line, reason);
+                }
+            } else if (delta != 0) {
+                deltas.add(new StockDelta(key.inventoryItemId(), key.locationId(), delta));
+                adjustedItemIds.add(key.inventoryItemId());
+            }
+        });
+
+        // 行已锁定并校验过，更新行数不一致说明有未预期的并发修改，整批回滚
+        if (inventoryLevelRepository.adjustStockLevels(deltas) != deltas.size()) {
+            throw new IllegalStateException("Inventory levels changed while locked");
+        }
+        inventoryService.refreshAvailability(adjustedItemIds);
+    }
+
+    /**
+     * 一次调整任务的进度、SKU解析结果和错误
+     */
+    private final class AdjustmentJob {
+
+        // SKU -> 库存项ID，不存在的SKU映射为null
+        private final Map<String, Long> skuIds = new HashMap<>();
+        private final List<StockAdjustmentResult.RowError> errors = new ArrayList<>();
+        private long total;
+        private long applied;
+        private long failed;
+
+        void fail(long rowNumber, String sku, Long locationId, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new StockAdjustmentResult.RowError(rowNumber, sku, locationId, message));
+            }
+        }
+
+        void fail(AdjustmentLine line, String message) {
+            fail(line.rowNumber(), line.data().getSku(), line.data().getLocation_id(), message);
+        }
+    }
+
+    private record AdjustmentLine(long rowNumber, StockAdjustmentRow data) {
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,6 +23,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
         
+        return toUserDetails(user);
+    }
+    
+    /**
+     * 回库校验令牌版本，仅当令牌版本与用户当前版本一致时返回用户信息
+     * @param username 用户名（电子邮件）
+     * @param tokenVersion 令牌中携带的版本
+     * @return 用户信息，令牌已失效时为空
+     */
+    public Optional<UserDetails> loadUserIfTokenCurrent(String username, long tokenVersion) {
+        return userRepository.findByEmail(username)
+                .filter(user -> user.getTokenVersion() != null && user.getTokenVersion() == tokenVersion)
+                .map(this::toUserDetails);
+    }
+    
+    private UserDetails toUserDetails(User user) {
         // 将用户的所有角色转换为GrantedAuthority集合
         var authorities = user.getRoles().stream()
                 .map(SimpleGrantedAuthority::new)
@@ -1,5 +1,6 @@
 package com.qvtu.service.impl;
 
+import com.qvtu.config.CacheConfig;
 import com.qvtu.dto.UserDTO;
 import com.qvtu.dto.auth.AuthResponse;
 import com.qvtu.dto.auth.LoginRequest;
@@ -9,10 +10,15 @@ import com.qvtu.exception.EmailAlreadyExistsException;
 import com.qvtu.exception.ResourceNotFoundException;
 import com.qvtu.model.User;
 import com.qvtu.repository.UserRepository;
+import com.qvtu.security.PasswordHashingService;
+import com.qvtu.security.TokenVersionRegistry;
+import com.qvtu.service.RefreshTokenService;
 import com.qvtu.service.UserService;
 import com.qvtu.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -25,8 +31,10 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RefreshTokenService refreshTokenService;
     
     @Override
     public AuthResponse login(LoginRequest loginRequest) {
@@ -35,12 +43,19 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new AuthenticationException("Invalid email or password"));
         
         // 验证密码
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new AuthenticationException("Invalid email or password");
         }
         
+        // BCrypt强度调整后按新强度重新哈希，无需数据迁移
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(loginRequest.getPassword()));
+            user = userRepository.save(user);
+        }
+        
         // 生成JWT令牌
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user);
+        String refreshToken = refreshTokenService.issueRefreshToken(user);
         
         // 转换为UserDTO
         UserDTO userDTO = mapToDTO(user);
@@ -48,6 +63,7 @@ public class UserServiceImpl implements UserService {
         // 返回认证响应
         return AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken)
                 .user(userDTO)
                 .message("Login successful")
                 .build();
@@ -63,7 +79,7 @@ public class UserServiceImpl implements UserService {
         // 创建新用户
         User user = new User();
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        user.setPassword(passwordHashingService.encode(registerRequest.getPassword()));
         user.setFirstName(registerRequest.getFirstName());
         user.setLastName(registerRequest.getLastName());
         user.setPhone(registerRequest.getPhone());
@@ -74,7 +90,8 @@ public class UserServiceImpl implements UserService {
         User savedUser = userRepository.save(user);
         
         // 生成JWT令牌
-        String token = jwtUtil.generateToken(savedUser.getEmail());
+        String token = jwtUtil.generateToken(savedUser);
+        String refreshToken = refreshTokenService.issueRefreshToken(savedUser);
         
         // 转换为UserDTO
         UserDTO userDTO = mapToDTO(savedUser);
@@ -82,6 +99,7 @@ public class UserServiceImpl implements UserService {
         // 返回认证响应
         return AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken)
                 .user(userDTO)
                 .message("Registration successful")
                 .build();
@@ -95,6 +113,7 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_EMAIL, key = "#email", unless = "#result == null")
     public Optional<UserDTO> findByEmail(String email) {
         return userRepository.findByEmail(email)
                 .map(this::mapToDTO);
@@ -108,6 +127,11 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    // 客户也是用户，资料变更同时清除客户缓存
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.USERS_BY_EMAIL, CacheConfig.CUSTOMERS_BY_EMAIL}, allEntries = true)
+    })
     public UserDTO updateUser(Long id, UserDTO userDTO) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
@@ -117,6 +141,9 @@ public class UserServiceImpl implements UserService {
         user.setLastName(userDTO.getLastName());
         user.setPhone(userDTO.getPhone());
         user.setAvatarUrl(userDTO.getAvatarUrl());
+        if (user.isActive() != userDTO.isActive()) {
+            invalidateTokens(user);
+        }
         user.setActive(userDTO.isActive());
         
         // 保存用户
@@ -126,10 +153,15 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.USERS_BY_EMAIL, CacheConfig.CUSTOMERS_BY_EMAIL}, allEntries = true)
+    })
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
+        invalidateTokens(user);
         userRepository.delete(user);
     }
     
@@ -139,12 +171,13 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
         // 验证旧密码
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             return false;
         }
         
         // 更新密码
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
+        invalidateTokens(user);
         userRepository.save(user);
         
         return true;
@@ -156,6 +189,10 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.CUSTOMERS_BY_USER_ID}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.USERS_BY_EMAIL, CacheConfig.CUSTOMERS_BY_EMAIL}, allEntries = true)
+    })
     public UserDTO setUserRole(Long id, String role) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
@@ -163,6 +200,7 @@ public class UserServiceImpl implements UserService {
         // 将角色更新为用户请求的角色
         user.getRoles().clear();
         user.getRoles().add(role.startsWith("ROLE_") ? role : "ROLE_" + role);
+        invalidateTokens(user);
         
         User savedUser = userRepository.save(user);
         return mapToDTO(savedUser);
@@ -178,7 +216,7 @@ public class UserServiceImpl implements UserService {
         // 创建新用户
         User user = new User();
         user.setEmail(userDTO.getEmail());
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHashingService.encode(password));
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
         user.setPhone(userDTO.getPhone());
@@ -193,6 +231,16 @@ public class UserServiceImpl implements UserService {
         return mapToDTO(savedUser);
     }
     
+    /**
+     * 递增用户令牌版本，使此前签发的令牌在下次请求时回库校验
+     * @param user User实体
+     */
+    private void invalidateTokens(User user) {
+        long nextVersion = (user.getTokenVersion() != null ? user.getTokenVersion() : 0L) + 1;
+        user.setTokenVersion(nextVersion);
+        tokenVersionRegistry.bump(user.getId(), nextVersion);
+    }
+    
     /**
      * 将User实体转换为UserDTO
      * @param user User实体
@@ -0,0 +1,133 @@
+package com.qvtu.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式CSV读取器（RFC 4180），逐条读取记录，不把整个文件载入内存
+ * 支持双引号包裹的字段、字段内的 "" 转义和换行，以及 CRLF/LF 行尾和UTF-8 BOM
+ */
+public class CsvReader implements Closeable {
+    
+    private static final int EOF = -1;
+    
+    private final Reader reader;
+    private int peeked = Integer.MIN_VALUE;
+    private long lineNumber = 1;
+    private boolean started;
+    
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * 读取下一条记录，跳过空行
+     * @return 字段列表，读到文件末尾时返回null
+     * @throws IOException 读取失败或引号未闭合
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field at line " + lineNumber);
+                }
+                if (!fieldStarted && fields.isEmpty()) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    fieldStarted = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = true;
+                }
+                case '\r', '\n' -> {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    lineNumber++;
+                    if (!fieldStarted && fields.isEmpty()) {
+                        // 空行
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> {
+                    field.append((char) c);
+                    fieldStarted = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 当前读取位置所在的物理行号，从1开始
+     * @return 行号
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private int read() throws IOException {
+        int c;
+        if (peeked != Integer.MIN_VALUE) {
+            c = peeked;
+            peeked = Integer.MIN_VALUE;
+        } else {
+            c = reader.read();
+        }
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                return read();
+            }
+        }
+        return c;
+    }
+    
+    private int peek() throws IOException {
+        if (peeked == Integer.MIN_VALUE) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,73 @@
+package com.qvtu.util;
+
+import com.qvtu.exception.BadRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 游标编解码工具，游标由 (createdAt, id) 组成，按这两列倒序翻页
+ * 游标以Base64URL编码，对客户端不透明
+ */
+public final class CursorCodec {
+    
+    public static final String CREATED_AT = "createdAt";
+    public static final String ID = "id";
+    
+    private static final char SEPARATOR = '|';
+    
+    private CursorCodec() {
+    }
+    
+    /**
+     * 编码游标
+     * @param position 最后一行的位置
+     * @return 游标字符串
+     */
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        Map<String, ?> keys = keyset.getKeys();
+        return encode((LocalDateTime) keys.get(CREATED_AT), (Long) keys.get(ID));
+    }
+    
+    /**
+     * 编码游标
+     * @param createdAt 最后一行的创建时间
+     * @param id 最后一行的ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解码游标
+     * @param cursor 游标字符串，为空时表示第一页
+     * @return 翻页位置
+     * @throws BadRequestException 游标格式错误
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(CREATED_AT, LocalDateTime.parse(raw.substring(0, separator)));
+            keys.put(ID, Long.parseLong(raw.substring(separator + 1)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -1,30 +1,66 @@
 package com.qvtu.util;
 
+import com.qvtu.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * JWT工具类，用于生成和验证JWT令牌
+ * 签名密钥和解析器在启动时构建一次，二者均不可变且线程安全
  */
 @Component
 public class JwtUtil {
     
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    
     @Value("${app.jwt.secret}")
     private String secret;
     
     @Value("${app.jwt.expiration}")
     private Long expiration;
     
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
+    /**
+     * 解析并验证令牌，签名和过期时间只校验一次
+     * 调用方应复用返回的声明，避免对同一令牌重复解析
+     * @param token JWT令牌
+     * @return 所有声明
+     * @throws io.jsonwebtoken.JwtException 令牌无效或已过期
+     */
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
     /**
      * 从令牌中获取用户名
      * @param token JWT令牌
@@ -34,6 +70,43 @@ public class JwtUtil {
         return getClaimFromToken(token, Claims::getSubject);
     }
     
+    /**
+     * 从声明中获取用户ID
+     * @param claims 令牌声明
+     * @return 用户ID，旧版令牌不含该声明时返回null
+     */
+    public Long getUserId(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        return userId != null ? userId.longValue() : null;
+    }
+    
+    /**
+     * 从声明中获取令牌版本
+     * @param claims 令牌声明
+     * @return 令牌版本，旧版令牌不含该声明时返回null
+     */
+    public Long getTokenVersion(Claims claims) {
+        Number version = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        return version != null ? version.longValue() : null;
+    }
+    
+    /**
+     * 从声明中获取角色列表
+     * @param claims 令牌声明
+     * @return 角色列表
+     */
+    public List<String> getRoles(Claims claims) {
+        Object roles = claims.get(CLAIM_ROLES);
+        if (!(roles instanceof List<?> list)) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(list.size());
+        for (Object role : list) {
+            result.add(String.valueOf(role));
+        }
+        return result;
+    }
+    
     /**
      * 从令牌中获取过期时间
      * @param token JWT令牌
@@ -51,32 +124,18 @@ public class JwtUtil {
      * @return 声明
      */
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
     
     /**
-     * 从令牌中获取所有声明
-     * @param token JWT令牌
-     * @return 所有声明
-     */
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts
-            .parserBuilder()
-            .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
-    }
-    
-    /**
-     * 检查令牌是否过期
-     * @param token JWT令牌
+     * 检查声明是否过期
+     * @param claims 令牌声明
      * @return 是否过期
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
     
     /**
@@ -89,6 +148,19 @@ public class JwtUtil {
         return doGenerateToken(claims, username);
     }
     
+    /**
+     * 生成携带用户ID、角色和令牌版本的令牌，过滤器可直接据此构建认证信息
+     * @param user 用户
+     * @return JWT令牌
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLES, new ArrayList<>(user.getRoles()));
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion() != null ? user.getTokenVersion() : 0L);
+        return doGenerateToken(claims, user.getEmail());
+    }
+    
     /**
      * 生成令牌
      * @param claims 声明
@@ -98,10 +170,11 @@ public class JwtUtil {
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
@@ -112,7 +185,16 @@ public class JwtUtil {
      * @return 是否有效
      */
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = getUsernameFromToken(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        return validateToken(parseToken(token), username);
+    }
+    
+    /**
+     * 使用已解析的声明验证令牌，不再重复校验签名
+     * @param claims 令牌声明
+     * @param username 用户名
+     * @return 是否有效
+     */
+    public boolean validateToken(Claims claims, String username) {
+        return username != null && username.equals(claims.getSubject()) && !isTokenExpired(claims);
     }
 } 
\ No newline at end of file
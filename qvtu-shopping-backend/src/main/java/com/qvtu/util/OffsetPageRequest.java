@@ -0,0 +1,76 @@
+package com.qvtu.util;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * 按任意偏移量分页，偏移量不必是每页条数的整数倍
+ * PageRequest只能表示页码，offset / limit 会把不整除的偏移量截断到页首
+ */
+public final class OffsetPageRequest implements Pageable {
+    
+    private final long offset;
+    private final int limit;
+    private final Sort sort;
+    
+    public OffsetPageRequest(long offset, int limit) {
+        this(offset, limit, Sort.unsorted());
+    }
+    
+    public OffsetPageRequest(long offset, int limit, Sort sort) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.offset = offset;
+        this.limit = limit;
+        this.sort = sort;
+    }
+    
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / limit);
+    }
+    
+    @Override
+    public int getPageSize() {
+        return limit;
+    }
+    
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+    
+    @Override
+    public Sort getSort() {
+        return sort;
+    }
+    
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + limit, limit, sort);
+    }
+    
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(offset - limit, 0), limit, sort) : first();
+    }
+    
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, limit, sort);
+    }
+    
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * limit, limit, sort);
+    }
+    
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.qvtu.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量导入的逐行读取器，CSV和NDJSON输入都转换为 字段名 -> 值 的映射
+ * 单行格式错误作为该行的错误返回，不中断读取
+ */
+public interface RowReader extends Closeable {
+
+    /**
+     * 一行输入
+     * @param rowNumber 数据行号，从1开始，不含CSV表头
+     * @param values 字段名 -> 值，格式错误时为null
+     * @param error 格式错误信息，正常时为null
+     */
+    record Row(long rowNumber, Map<String, ?> values, String error) {
+    }
+
+    /**
+     * 读取下一行
+     * @return 下一行，读到末尾时返回null
+     * @throws IOException 读取失败
+     */
+    Row next() throws IOException;
+
+    /**
+     * CSV输入，首行为表头，空字段视为null
+     */
+    static RowReader csv(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        List<String> columns = reader.readRecord();
+        List<String> header = columns != null ? columns.stream().map(String::trim).toList() : List.of();
+
+        return new RowReader() {
+
+            private long rowNumber;
+
+            @Override
+            public Row next() throws IOException {
+                List<String> record = reader.readRecord();
+                if (record == null) {
+                    return null;
+                }
+                rowNumber++;
+                if (record.size() != header.size()) {
+                    return new Row(rowNumber, null,
+                            "Expected " + header.size() + " columns but found " + record.size());
+                }
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String value = record.get(i);
+                    values.put(header.get(i), value.isEmpty() ? null : value);
+                }
+                return new Row(rowNumber, values, null);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    /**
+     * NDJSON输入，每行一个JSON对象，跳过空行
+     */
+    static RowReader ndjson(InputStream input, ObjectMapper objectMapper) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        TypeReference<Map<String, Object>> rowType = new TypeReference<>() {};
+
+        return new RowReader() {
+
+            private long rowNumber;
+
+            @Override
+            public Row next() throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                } while (line.isBlank());
+                rowNumber++;
+                try {
+                    return new Row(rowNumber, objectMapper.readValue(line, rowType), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.qvtu.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 搜索分词工具，索引和查询必须使用同一套规则
+ * 文本先做NFKC归一化并转小写；字母数字按非字母数字字符切分为词，
+ * 中日韩文字没有分隔符，按相邻两个字切分为二元组，单个字单独成词
+ */
+public final class SearchTokenizer {
+    
+    private static final int MAX_TOKEN_LENGTH = 64;
+    
+    private SearchTokenizer() {
+    }
+    
+    /**
+     * 将文本切分为去重后的词
+     * @param text 文本，可为null
+     * @return 按出现顺序排列的词
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjkRun = new ArrayList<>();
+        
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjkRun.add(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjkRun, tokens);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjkRun, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjkRun, tokens);
+        return new ArrayList<>(tokens);
+    }
+    
+    /**
+     * 将多段文本切分为去重后的词
+     * @param texts 文本，元素可为null
+     * @return 按出现顺序排列的词
+     */
+    public static List<String> tokenize(Iterable<String> texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            tokens.addAll(tokenize(text));
+        }
+        return new ArrayList<>(tokens);
+    }
+    
+    private static void flushWord(StringBuilder word, Set<String> tokens) {
+        if (word.length() > 0 && word.length() <= MAX_TOKEN_LENGTH) {
+            tokens.add(word.toString());
+        }
+        word.setLength(0);
+    }
+    
+    private static void flushCjk(List<Integer> run, Set<String> tokens) {
+        if (run.size() == 1) {
+            tokens.add(new String(Character.toChars(run.get(0))));
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            tokens.add(new StringBuilder()
+                    .appendCodePoint(run.get(i))
+                    .appendCodePoint(run.get(i + 1))
+                    .toString());
+        }
+        run.clear();
+    }
+    
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
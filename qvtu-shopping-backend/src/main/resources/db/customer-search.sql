@@ -0,0 +1,14 @@
+-- 客户搜索索引，启动时在Hibernate建表之后执行，所有语句均可重复执行
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- 搜索文档：邮箱、名、姓拼接后转小写，查询与索引必须使用同一函数才能命中表达式索引
+CREATE OR REPLACE FUNCTION customer_search_document(email text, first_name text, last_name text)
+    RETURNS text
+    LANGUAGE sql
+    IMMUTABLE
+    PARALLEL SAFE
+AS 'SELECT lower(coalesce(email, '''') || '' '' || coalesce(first_name, '''') || '' '' || coalesce(last_name, ''''))';
+
+-- 三元组GIN索引，支持 LIKE '%q%' 子串匹配和 word_similarity 排序
+CREATE INDEX IF NOT EXISTS idx_users_search_trgm
+    ON users USING gin (customer_search_document(email, first_name, last_name) gin_trgm_ops);
@@ -0,0 +1,22 @@
+-- 库存变动流水，与 inventory_levels 的每次修改在同一条语句中写入，只追加不修改，所有语句均可重复执行
+CREATE TABLE IF NOT EXISTS inventory_movements (
+    id                bigserial   PRIMARY KEY,
+    type              varchar(16) NOT NULL,
+    inventory_item_id bigint      NOT NULL,
+    variant_id        bigint,
+    location_id       bigint      NOT NULL,
+    stock_delta       integer     NOT NULL DEFAULT 0,
+    reserved_delta    integer     NOT NULL DEFAULT 0,
+    incoming_delta    integer     NOT NULL DEFAULT 0,
+    created_at        timestamp   NOT NULL DEFAULT now()
+);
+
+-- 按库存项查询变动历史
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_item
+    ON inventory_movements (inventory_item_id, id);
+
+-- 写入流水的事务ID，重建投影时据此找出快照中尚未提交、之后才提交的流水
+ALTER TABLE inventory_movements ADD COLUMN IF NOT EXISTS xid xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_xid
+    ON inventory_movements (xid);
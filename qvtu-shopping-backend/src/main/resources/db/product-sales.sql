@@ -0,0 +1,11 @@
+-- 热销产品按小时汇总的销量，定时从订单明细重新汇总最近的小时并每天全量重建，所有语句均可重复执行
+CREATE TABLE IF NOT EXISTS product_sales_hourly (
+    product_id   bigint    NOT NULL,
+    bucket_start timestamp NOT NULL,
+    sales        bigint    NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, bucket_start)
+);
+
+-- 按时间窗口汇总和清理过期桶时按桶时间范围扫描
+CREATE INDEX IF NOT EXISTS idx_product_sales_hourly_bucket
+    ON product_sales_hourly (bucket_start);
@@ -0,0 +1,10 @@
+-- 产品搜索文档，由应用分词后写入，产品保存时增量更新，所有语句均可重复执行
+CREATE TABLE IF NOT EXISTS product_search (
+    product_id bigint    PRIMARY KEY REFERENCES products (id) ON DELETE CASCADE,
+    document   tsvector  NOT NULL,
+    updated_at timestamp NOT NULL DEFAULT now()
+);
+
+-- 倒排索引，支持 @@ 匹配和 'term':* 前缀查询
+CREATE INDEX IF NOT EXISTS idx_product_search_document
+    ON product_search USING gin (document);
@@ -0,0 +1,4 @@
+-- 到期预留按到期时间范围扫描，已释放和不过期的预留不进入索引，语句可重复执行
+CREATE INDEX IF NOT EXISTS idx_reservations_expires_at
+    ON reservations (expires_at)
+    WHERE deleted_at IS NULL AND expires_at IS NOT NULL;
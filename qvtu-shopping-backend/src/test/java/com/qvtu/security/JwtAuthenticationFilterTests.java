@@ -0,0 +1,135 @@
+package com.qvtu.security;
+
+import com.qvtu.model.TokenVersionChange;
+import com.qvtu.model.User;
+import com.qvtu.repository.RevokedTokenRepository;
+import com.qvtu.repository.TokenVersionChangeRepository;
+import com.qvtu.service.impl.UserDetailsServiceImpl;
+import com.qvtu.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 基于声明的认证：版本号未落后时不查库，降权、登出后旧令牌被拒绝
+ */
+class JwtAuthenticationFilterTests {
+
+	private static final long TTL_SECONDS = 900;
+
+	private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+	private final TokenVersionChangeRepository tokenVersionChangeRepository = mock(TokenVersionChangeRepository.class);
+	private JwtUtil jwtUtil;
+	private TokenVersionRegistry tokenVersionRegistry;
+	private TokenRevocationList tokenRevocationList;
+	private JwtAuthenticationFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", "test_secret_key_for_jwt_authentication_filter_tests_0123456789_abcdefghij");
+		ReflectionTestUtils.setField(jwtUtil, "expiration", TTL_SECONDS);
+		ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+		tokenVersionRegistry = new TokenVersionRegistry(tokenVersionChangeRepository, TTL_SECONDS);
+		tokenRevocationList = new TokenRevocationList(mock(RevokedTokenRepository.class));
+		filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenVersionRegistry,
+				new VerifiedTokenCache(100, new SimpleMeterRegistry()), tokenRevocationList);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void currentTokenAuthenticatesFromClaimsWithoutLookup() throws Exception {
+		String token = jwtUtil.generateToken(user(0L));
+
+		Authentication authentication = authenticate(token);
+
+		assertNotNull(authentication);
+		assertEquals("admin@example.com", authentication.getName());
+		assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+		verify(userDetailsService, never()).loadUserIfTokenCurrent(anyString(), anyLong());
+	}
+
+	@Test
+	void demotedUsersOldTokenIsRejected() throws Exception {
+		String token = jwtUtil.generateToken(user(0L));
+		// 降权时版本号递增，数据库中的版本已不再是0
+		tokenVersionRegistry.bump(1L, 1L);
+		when(userDetailsService.loadUserIfTokenCurrent("admin@example.com", 0L)).thenReturn(Optional.empty());
+
+		assertNull(authenticate(token));
+		verify(tokenVersionChangeRepository).save(any(TokenVersionChange.class));
+		verify(userDetailsService).loadUserIfTokenCurrent("admin@example.com", 0L);
+	}
+
+	@Test
+	void versionBumpOnAnotherInstanceIsSynced() throws Exception {
+		String token = jwtUtil.generateToken(user(0L));
+		TokenVersionChange change = new TokenVersionChange();
+		change.setUserId(1L);
+		change.setTokenVersion(1L);
+		change.setExpiresAt(LocalDateTime.now().plusSeconds(TTL_SECONDS));
+		when(tokenVersionChangeRepository.findByExpiresAtAfter(any())).thenReturn(List.of(change));
+		when(userDetailsService.loadUserIfTokenCurrent("admin@example.com", 0L)).thenReturn(Optional.empty());
+
+		tokenVersionRegistry.sync();
+
+		assertNull(authenticate(token));
+	}
+
+	@Test
+	void loggedOutTokenIsRejected() throws Exception {
+		String token = jwtUtil.generateToken(user(0L));
+		Claims claims = jwtUtil.parseToken(token);
+		assertNotNull(authenticate(token));
+		SecurityContextHolder.clearContext();
+
+		tokenRevocationList.add(claims.getId(), claims.getExpiration().getTime());
+
+		assertNull(authenticate(token));
+	}
+
+	private Authentication authenticate(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	private static User user(Long tokenVersion) {
+		User user = new User();
+		user.setId(1L);
+		user.setEmail("admin@example.com");
+		user.setRoles(Set.of("ROLE_ADMIN"));
+		user.setTokenVersion(tokenVersion);
+		return user;
+	}
+}
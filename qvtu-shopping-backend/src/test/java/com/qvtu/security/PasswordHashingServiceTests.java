@@ -0,0 +1,86 @@
+package com.qvtu.security;
+
+import com.qvtu.exception.GlobalExceptionHandler;
+import com.qvtu.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTests {
+
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+	// 单线程、队列容量1：一个任务执行中、一个排队时线程池已饱和
+	private final PasswordHashingService service =
+			new PasswordHashingService(passwordEncoder, meterRegistry, 10, 1, 1, 200);
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		service.shutdown();
+	}
+
+	@Test
+	void saturatedPoolRejectsWithTooManyRequests() throws Exception {
+		when(passwordEncoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return true;
+		});
+
+		CompletableFuture<Boolean> running = service.matchesAsync("secret", "hash");
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Boolean> queued = service.matchesAsync("secret", "hash");
+
+		TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+				() -> service.matchesAsync("secret", "hash"));
+		assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+
+		ResponseEntity<?> response = new GlobalExceptionHandler().handleTooManyRequestsException(ex);
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+		assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+
+		// 释放后排队的任务照常完成
+		release.countDown();
+		assertTrue(running.get(5, TimeUnit.SECONDS));
+		assertTrue(queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void slowHashTimesOutWithTooManyRequests() throws Exception {
+		when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return "hash";
+		});
+
+		assertThrows(TooManyRequestsException.class, () -> service.encode("secret"));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void rehashIsNeededWhenCostDiffers() {
+		assertFalse(service.needsRehash("$2a$10$abcdefghijklmnopqrstuv"));
+		assertTrue(service.needsRehash("$2a$12$abcdefghijklmnopqrstuv"));
+		assertTrue(service.needsRehash("{noop}plain"));
+		assertFalse(service.needsRehash(null));
+	}
+}
@@ -0,0 +1,46 @@
+package com.qvtu.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VerifiedTokenCacheTests {
+
+	private final VerifiedTokenCache cache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+
+	@Test
+	void cachedClaimsAreReturnedUntilInvalidated() {
+		Claims claims = claimsExpiringIn(60_000);
+		cache.put("header.payload.signature", claims);
+
+		assertSame(claims, cache.get("header.payload.signature"));
+		assertNull(cache.get("header.payload.other"));
+
+		cache.invalidate("header.payload.signature");
+		assertNull(cache.get("header.payload.signature"));
+	}
+
+	@Test
+	void expiredOrUnboundedTokensAreNotServed() {
+		// 条目存活时间为令牌剩余有效期，已过期的令牌不会命中
+		cache.put("expired", claimsExpiringIn(-1_000));
+		assertNull(cache.get("expired"));
+
+		// 没有过期时间的令牌不缓存
+		Claims unbounded = Jwts.claims().setSubject("user@example.com");
+		cache.put("unbounded", unbounded);
+		assertNull(cache.get("unbounded"));
+	}
+
+	private static Claims claimsExpiringIn(long millis) {
+		return Jwts.claims()
+				.setSubject("user@example.com")
+				.setExpiration(new Date(System.currentTimeMillis() + millis));
+	}
+}
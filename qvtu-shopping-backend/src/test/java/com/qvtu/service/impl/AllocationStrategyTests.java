@@ -0,0 +1,69 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.AllocationStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分配结果的数量之和等于需求，无法满足时返回空映射
+ */
+class AllocationStrategyTests {
+
+	private final AllocationStrategy locationOrder = new LocationOrderAllocationStrategy();
+	private final AllocationStrategy mostAvailable = new MostAvailableAllocationStrategy();
+
+	// 地点1可用2，地点2可用0（库存全部预留），地点3可用5，地点4可用5
+	private final List<StockLevel> levels = List.of(
+			level(1L, 4, 2), level(2L, 3, 3), level(3L, 5, 0), level(4L, 6, 1));
+
+	@Test
+	void locationOrderDrainsLowerLocationIdsFirst() {
+		assertEquals(Map.of(1L, 2), locationOrder.allocate(2, levels));
+		assertEquals(List.of(1L, 3L), List.copyOf(locationOrder.allocate(4, levels).keySet()));
+		assertEquals(Map.of(1L, 2, 3L, 2), locationOrder.allocate(4, levels));
+		assertEquals(Map.of(1L, 2, 3L, 5, 4L, 5), locationOrder.allocate(12, levels));
+	}
+
+	@Test
+	void mostAvailablePrefersASingleLocation() {
+		// 两个地点可用量相同时取ID较小者
+		assertEquals(Map.of(3L, 5), mostAvailable.allocate(5, levels));
+		assertEquals(Map.of(3L, 1), mostAvailable.allocate(1, levels));
+	}
+
+	@Test
+	void mostAvailableSplitsFromTheLargestLocation() {
+		assertEquals(List.of(3L, 4L), List.copyOf(mostAvailable.allocate(7, levels).keySet()));
+		assertEquals(Map.of(3L, 5, 4L, 2), mostAvailable.allocate(7, levels));
+		assertEquals(Map.of(3L, 5, 4L, 5, 1L, 2), mostAvailable.allocate(12, levels));
+	}
+
+	@Test
+	void unsatisfiableRequestAllocatesNothing() {
+		assertEquals(Map.of(), locationOrder.allocate(13, levels));
+		assertEquals(Map.of(), mostAvailable.allocate(13, levels));
+		assertEquals(Map.of(), locationOrder.allocate(1, List.of()));
+		assertEquals(Map.of(), mostAvailable.allocate(1, List.of()));
+	}
+
+	@Test
+	void overReservedLocationIsNeverAllocated() {
+		// 调整后库存低于已预留时可用量为负，不能抵消其他地点
+		List<StockLevel> overReserved = new ArrayList<>(levels);
+		overReserved.set(1, level(2L, 1, 3));
+
+		assertEquals(Map.of(), locationOrder.allocate(13, overReserved));
+		assertEquals(Map.of(1L, 2, 3L, 5, 4L, 5), locationOrder.allocate(12, overReserved));
+		assertEquals(Map.of(3L, 5, 4L, 5, 1L, 2), mostAvailable.allocate(12, overReserved));
+	}
+
+	private static StockLevel level(Long locationId, int stockLevel, int reservedQuantity) {
+		return new StockLevel(100L, locationId, stockLevel, reservedQuantity, false);
+	}
+}
@@ -0,0 +1,43 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.CategoryRepository;
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.service.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 带类级事务的服务上的提交后监听器须能通过启动时的事务监听器校验
+ */
+class CacheEvictionListenerTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withUserConfiguration(TransactionConfig.class)
+			.withBean(ProductRepository.class, () -> mock(ProductRepository.class))
+			.withBean(CategoryService.class, () -> mock(CategoryService.class))
+			.withBean(CacheManager.class, () -> mock(CacheManager.class));
+
+	@Test
+	void productServiceContextLoads() {
+		contextRunner.withBean(ProductServiceImpl.class)
+				.run(context -> assertThat(context).hasNotFailed());
+	}
+
+	@Test
+	void categoryServiceContextLoads() {
+		contextRunner.withBean(CategoryRepository.class, () -> mock(CategoryRepository.class))
+				.withBean(CategoryServiceImpl.class)
+				.run(context -> assertThat(context).hasNotFailed());
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableTransactionManagement(proxyTargetClass = true)
+	static class TransactionConfig {
+	}
+}
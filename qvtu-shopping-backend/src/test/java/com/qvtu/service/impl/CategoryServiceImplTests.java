@@ -0,0 +1,74 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CategoryDTO;
+import com.qvtu.event.CategoryChangedEvent;
+import com.qvtu.exception.BadRequestException;
+import com.qvtu.model.Category;
+import com.qvtu.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.qvtu.service.impl.CategoryTreeTests.category;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 移动分类时拒绝把分类挂到自身或其子孙之下
+ */
+class CategoryServiceImplTests {
+
+	private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final CategoryServiceImpl service = new CategoryServiceImpl(categoryRepository, eventPublisher);
+
+	private final Category root = category(1L, null, 0);
+	private final Category child = category(2L, root, 0);
+	private final Category grandchild = category(3L, child, 0);
+	private final Category sibling = category(4L, null, 1);
+
+	@BeforeEach
+	void setUp() {
+		when(categoryRepository.findAllActive()).thenReturn(List.of(root, child, grandchild, sibling));
+		when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		for (Category category : List.of(root, child, grandchild, sibling)) {
+			when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
+		}
+		service.refresh();
+	}
+
+	@Test
+	void movingUnderItselfOrADescendantIsRejected() {
+		assertThrows(BadRequestException.class, () -> service.updateCategory(1L, parent(1L)));
+		assertThrows(BadRequestException.class, () -> service.updateCategory(1L, parent(3L)));
+		assertThrows(BadRequestException.class, () -> service.updateCategory(2L, parent(3L)));
+		verify(categoryRepository, never()).save(any());
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	@Test
+	void movingUnderAnotherBranchIsAllowed() {
+		service.updateCategory(2L, parent(4L));
+
+		assertSame(sibling, child.getParent());
+		verify(eventPublisher).publishEvent(new CategoryChangedEvent(2L));
+
+		// 提交后重建，子树随之移动
+		service.onCategoryChanged(new CategoryChangedEvent(2L));
+		assertEquals(List.of(4L, 2L, 3L), service.getDescendantIds(4L));
+		assertEquals(List.of(1L), service.getDescendantIds(1L));
+	}
+
+	private static CategoryDTO parent(Long parentId) {
+		return CategoryDTO.builder().parent_id(parentId).build();
+	}
+}
@@ -0,0 +1,80 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CategoryDTO;
+import com.qvtu.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 前序编号：子孙分类占据连续区间，兄弟按rank和ID排序
+ */
+class CategoryTreeTests {
+
+	//        1              6
+	//      /   \            |
+	//     3     2           7
+	//    / \
+	//   5   4
+	private final Category root = category(1L, null, 0);
+	private final Category second = category(2L, root, 2);
+	private final Category first = category(3L, root, 1);
+	private final Category leafB = category(4L, first, null);
+	private final Category leafA = category(5L, first, 0);
+	private final Category otherRoot = category(6L, null, 1);
+	private final Category otherChild = category(7L, otherRoot, 0);
+	private final CategoryTree tree = CategoryTree.build(
+			List.of(otherChild, leafB, second, otherRoot, leafA, first, root));
+
+	@Test
+	void descendantsAreAContiguousPreorderRange() {
+		assertEquals(List.of(1L, 3L, 5L, 4L, 2L), tree.descendantIds(1L));
+		assertEquals(List.of(3L, 5L, 4L), tree.descendantIds(3L));
+		assertEquals(List.of(4L), tree.descendantIds(4L));
+		assertEquals(List.of(6L, 7L), tree.descendantIds(6L));
+		assertEquals(List.of(), tree.descendantIds(99L));
+	}
+
+	@Test
+	void nodesCarryOrderedChildrenAndMaterializedPath() {
+		assertEquals(List.of(1L, 6L), tree.roots().stream().map(CategoryDTO::getId).toList());
+		CategoryDTO node = tree.find(3L).orElseThrow();
+		assertEquals(List.of(5L, 4L), node.getChildren().stream().map(CategoryDTO::getId).toList());
+		assertEquals("1/3/4", tree.find(4L).orElseThrow().getPath());
+		assertEquals(1L, node.getParent_id());
+	}
+
+	@Test
+	void descendantCheckCoversSelfAndSubtreeOnly() {
+		assertTrue(tree.isDescendant(1L, 1L));
+		assertTrue(tree.isDescendant(1L, 4L));
+		assertTrue(tree.isDescendant(3L, 5L));
+		assertFalse(tree.isDescendant(3L, 2L));
+		assertFalse(tree.isDescendant(4L, 3L));
+		assertFalse(tree.isDescendant(1L, 7L));
+		assertFalse(tree.isDescendant(1L, 99L));
+	}
+
+	@Test
+	void categoryWithMissingParentBecomesRoot() {
+		Category orphan = category(8L, category(42L, null, 0), 0);
+
+		CategoryTree orphaned = CategoryTree.build(List.of(orphan));
+
+		assertEquals(List.of(8L), orphaned.roots().stream().map(CategoryDTO::getId).toList());
+		assertEquals("8", orphaned.find(8L).orElseThrow().getPath());
+	}
+
+	static Category category(Long id, Category parent, Integer rank) {
+		Category category = new Category();
+		category.setId(id);
+		category.setName("Category " + id);
+		category.setParent(parent);
+		category.setRank(rank);
+		return category;
+	}
+}
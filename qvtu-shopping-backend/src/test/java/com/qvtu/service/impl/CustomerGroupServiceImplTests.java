@@ -0,0 +1,67 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CustomerGroupMembersResult;
+import com.qvtu.exception.ResourceNotFoundException;
+import com.qvtu.repository.CustomerGroupRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 群组成员批量变更：先移除后添加，各一条集合语句
+ */
+class CustomerGroupServiceImplTests {
+
+	private final CustomerGroupRepository customerGroupRepository = mock(CustomerGroupRepository.class);
+	private final CustomerGroupServiceImpl service = new CustomerGroupServiceImpl(customerGroupRepository);
+
+	@Test
+	void membersAreRemovedThenAddedInOneStatementEach() {
+		when(customerGroupRepository.existsById(7L)).thenReturn(true);
+		when(customerGroupRepository.removeCustomers(eq(7L), any())).thenReturn(1);
+		when(customerGroupRepository.addCustomers(eq(7L), any())).thenReturn(2);
+
+		// 重复的ID只传一次
+		CustomerGroupMembersResult result = service.updateMembers(7L, List.of(1L, 2L, 2L, 3L), List.of(3L, 3L));
+
+		assertEquals(2, result.getAdded());
+		assertEquals(1, result.getRemoved());
+		InOrder order = inOrder(customerGroupRepository);
+		order.verify(customerGroupRepository).removeCustomers(7L, Set.of(3L));
+		order.verify(customerGroupRepository).addCustomers(7L, Set.of(1L, 2L, 3L));
+	}
+
+	@Test
+	void omittedSideIsSkipped() {
+		when(customerGroupRepository.existsById(7L)).thenReturn(true);
+		when(customerGroupRepository.addCustomers(eq(7L), any())).thenReturn(1);
+
+		CustomerGroupMembersResult result = service.updateMembers(7L, List.of(1L), null);
+
+		assertEquals(1, result.getAdded());
+		assertEquals(0, result.getRemoved());
+		verify(customerGroupRepository, never()).removeCustomers(anyLong(), any());
+	}
+
+	@Test
+	void unknownGroupIsRejected() {
+		when(customerGroupRepository.existsById(7L)).thenReturn(false);
+
+		assertThrows(ResourceNotFoundException.class, () -> service.updateMembers(7L, List.of(1L), List.of(2L)));
+		verify(customerGroupRepository, never()).addCustomers(anyLong(), any());
+		verify(customerGroupRepository, never()).removeCustomers(anyLong(), any());
+	}
+}
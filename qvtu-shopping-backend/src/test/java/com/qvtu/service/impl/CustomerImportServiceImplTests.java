@@ -0,0 +1,138 @@
+package com.qvtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qvtu.dto.CustomerImportResult;
+import com.qvtu.repository.UserRepository;
+import com.qvtu.service.CustomerImportService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量导入：整批写入失败时逐行重试，只有出错的行计为失败
+ */
+class CustomerImportServiceImplTests {
+
+	private static final String HEADER = "email,first_name,last_name,password\n";
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+	private final AtomicLong sequence = new AtomicLong();
+	private final List<String> insertedEmails = new ArrayList<>();
+	private Set<String> conflictingEmails = Set.of();
+	private CustomerImportServiceImpl service;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		service = new CustomerImportServiceImpl(jdbcTemplate, transactionTemplate, userRepository, passwordEncoder,
+				Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 100, 2, 100);
+
+		when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hash:" + invocation.getArgument(0));
+		when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyString(), anyInt()))
+				.thenAnswer(invocation -> LongStream.rangeClosed(1, invocation.<Integer>getArgument(3))
+						.map(i -> sequence.incrementAndGet()).boxed().toList());
+		doAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+
+		// 插入用户时读取每行的邮箱，批内含冲突邮箱时整批失败，模拟并发导入造成的唯一约束冲突
+		when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+				.thenAnswer(invocation -> {
+					if (!invocation.<String>getArgument(0).startsWith("INSERT INTO users ")) {
+						return new int[0][];
+					}
+					List<String> emails = new ArrayList<>();
+					ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+					for (Object row : invocation.<Collection<Object>>getArgument(1)) {
+						PreparedStatement ps = mock(PreparedStatement.class);
+						doAnswer(set -> emails.add(set.getArgument(1))).when(ps).setString(eq(2), anyString());
+						setter.setValues(ps, row);
+					}
+					if (emails.stream().anyMatch(conflictingEmails::contains)) {
+						throw new DuplicateKeyException("duplicate key value violates unique constraint \"users_email_key\"");
+					}
+					insertedEmails.addAll(emails);
+					return new int[0][];
+				});
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void failedBatchIsRetriedRowByRow() throws Exception {
+		conflictingEmails = Set.of("race@example.com");
+
+		CustomerImportResult result = importCsv(HEADER
+				+ "a@example.com,A,One,secret1\n"
+				+ "race@example.com,R,Two,secret2\n"
+				+ "b@example.com,B,Three,\n");
+
+		assertEquals(3, result.getTotal());
+		assertEquals(2, result.getImported());
+		assertEquals(1, result.getFailed());
+		assertEquals(List.of("a@example.com", "b@example.com"), insertedEmails);
+		CustomerImportResult.RowError error = result.getErrors().get(0);
+		assertEquals(2, error.getRow());
+		assertEquals("race@example.com", error.getEmail());
+		assertTrue(error.getMessage().contains("users_email_key"));
+	}
+
+	@Test
+	void invalidExistingAndDuplicateRowsAreReportedWithoutBlockingTheBatch() throws Exception {
+		CustomerImportResult result = importCsv(HEADER
+				+ "a@example.com,A,One,secret1\n"
+				+ "not-an-email,B,Two,secret2\n"
+				+ "taken@example.com,C,Three,secret3\n"
+				+ "a@example.com,D,Four,secret4\n"
+				+ "e@example.com,E,Five,123\n");
+
+		assertEquals(5, result.getTotal());
+		assertEquals(1, result.getImported());
+		assertEquals(4, result.getFailed());
+		assertEquals(List.of("a@example.com"), insertedEmails);
+		assertEquals(List.of(2L, 4L, 5L, 3L),
+				result.getErrors().stream().map(CustomerImportResult.RowError::getRow).toList());
+	}
+
+	private CustomerImportResult importCsv(String csv) throws Exception {
+		return service.importCustomers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				CustomerImportService.Format.CSV);
+	}
+}
@@ -0,0 +1,89 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.CustomerDTO;
+import com.qvtu.model.Address;
+import com.qvtu.model.Customer;
+import com.qvtu.model.CustomerGroup;
+import com.qvtu.qvtushoppingbackend.QvtuShoppingBackendApplication;
+import com.qvtu.repository.CustomerGroupRepository;
+import com.qvtu.repository.CustomerRepository;
+import com.qvtu.service.CustomerService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = QvtuShoppingBackendApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class CustomerServiceImplTests {
+
+	private static final int PAGE_SIZE = 50;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CustomerGroupRepository customerGroupRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void customerPageLoadsInFixedNumberOfStatements() {
+		CustomerGroup group = new CustomerGroup();
+		group.setName("statement-count-test");
+		customerGroupRepository.save(group);
+
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			Customer customer = new Customer();
+			customer.setEmail("page-test-" + i + "@example.com");
+			customer.setPassword("not-used");
+			customer.getGroups().add(group);
+			for (int j = 0; j < 2; j++) {
+				Address address = new Address();
+				address.setCustomer(customer);
+				address.setAddress1("Street " + j);
+				address.setCity("City");
+				address.setCountryCode("cn");
+				address.setPostalCode("000000");
+				customer.getAddresses().add(address);
+			}
+			customerRepository.save(customer);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Page<CustomerDTO> page = customerService.findCustomers(null, null, Set.of("addresses", "groups"),
+				PageRequest.of(0, PAGE_SIZE));
+
+		assertEquals(PAGE_SIZE, page.getContent().size());
+		assertTrue(page.getContent().stream().allMatch(c -> c.getShipping_addresses() != null),
+				"addresses should be loaded");
+		assertTrue(page.getContent().stream().allMatch(c -> c.getGroups() != null),
+				"groups should be loaded");
+		// 分页查询、计数、地址、群组，与页大小无关
+		assertTrue(statistics.getPrepareStatementCount() <= 5,
+				"expected at most 5 statements per page but was " + statistics.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,185 @@
+package com.qvtu.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryCountersTests {
+
+	private static final int STOCK = 10_000;
+	private static final int THREADS = 64;
+	private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+	@Test
+	void concurrentReservationsNeverOversell() throws Exception {
+		InventoryCounters.Counter counter = new InventoryCounters.Counter(STOCK);
+		AtomicLong admitted = new AtomicLong();
+
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+				int quantity = random.nextInt(1, 4);
+				if (counter.tryReserve(quantity)) {
+					admitted.addAndGet(quantity);
+				}
+			}
+		});
+
+		// 需求远超库存：准入总量不超过库存，且与剩余可售量之和恰好等于库存
+		assertTrue(admitted.get() <= STOCK, "oversold: admitted " + admitted.get());
+		assertEquals(STOCK, admitted.get() + counter.available());
+		assertTrue(counter.available() < 3, "stock left unsold: " + counter.available());
+		assertEquals(admitted.get(), counter.drain());
+		assertFalse(counter.tryReserve(3));
+	}
+
+	@Test
+	void concurrentFlushesAndCloseLoseNoAdmittedReservation() throws Exception {
+		InventoryCounters.Counter counter = new InventoryCounters.Counter(STOCK);
+		AtomicLong kept = new AtomicLong();
+		AtomicLong flushed = new AtomicLong();
+		AtomicBoolean running = new AtomicBoolean(true);
+
+		// 模拟定时写回：不断取出净变化量，偶尔写回失败后放回
+		Thread flusher = new Thread(() -> {
+			while (running.get()) {
+				long delta = counter.drain();
+				if (ThreadLocalRandom.current().nextInt(10) == 0) {
+					counter.restore(delta);
+				} else {
+					flushed.addAndGet(delta);
+				}
+			}
+		});
+		flusher.start();
+
+		CountDownLatch halfway = new CountDownLatch(THREADS);
+		Thread closer = new Thread(() -> {
+			try {
+				halfway.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			counter.close();
+		});
+		closer.start();
+
+		runConcurrently(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+				if (i == ATTEMPTS_PER_THREAD / 20) {
+					halfway.countDown();
+				}
+				int quantity = random.nextInt(1, 4);
+				if (counter.tryReserve(quantity)) {
+					// 模拟写入预留记录失败后归还
+					if (random.nextInt(5) == 0) {
+						counter.release(quantity);
+					} else {
+						kept.addAndGet(quantity);
+					}
+				}
+			}
+		});
+
+		closer.join();
+		running.set(false);
+		flusher.join();
+		flushed.addAndGet(counter.drain());
+
+		assertTrue(kept.get() <= STOCK, "oversold: kept " + kept.get());
+		assertEquals(kept.get(), flushed.get());
+		assertEquals(0, counter.available());
+		assertFalse(counter.tryReserve(1));
+	}
+
+	@Test
+	void creditRestoresAvailabilityWithoutUnflushedDelta() {
+		InventoryCounters.Counter counter = new InventoryCounters.Counter(5);
+		assertTrue(counter.tryReserve(5));
+		assertEquals(5, counter.drain());
+
+		// 到期释放已在数据库中减少预留量，只归还可售量
+		counter.credit(3);
+		assertEquals(3, counter.available());
+		assertEquals(0, counter.drain());
+		assertTrue(counter.tryReserve(3));
+		assertFalse(counter.tryReserve(1));
+
+		counter.close();
+		counter.credit(3);
+		assertFalse(counter.tryReserve(1));
+	}
+
+	@Test
+	void awaitAdmissionsWaitsForInFlightReservation() throws Exception {
+		InventoryCounters.Counter counter = new InventoryCounters.Counter(STOCK);
+		CountDownLatch admitted = new CountDownLatch(1);
+		CountDownLatch inserted = new CountDownLatch(1);
+		AtomicBoolean recorded = new AtomicBoolean();
+
+		// 模拟准入后尚未写入预留记录的请求
+		Thread reserver = new Thread(() -> {
+			counter.beginAdmission();
+			try {
+				assertTrue(counter.tryReserve(1));
+				admitted.countDown();
+				inserted.await();
+				recorded.set(true);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				counter.endAdmission();
+			}
+		});
+		reserver.start();
+		admitted.await();
+
+		counter.close();
+		Thread disarmer = new Thread(counter::awaitAdmissions);
+		disarmer.start();
+		disarmer.join(200);
+		assertTrue(disarmer.isAlive(), "returned before the in-flight reservation was recorded");
+
+		inserted.countDown();
+		disarmer.join(5_000);
+		assertFalse(disarmer.isAlive());
+		assertTrue(recorded.get());
+		assertEquals(1, counter.drain());
+		reserver.join();
+	}
+
+	private static void runConcurrently(Runnable task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					task.run();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.InventoryTotalsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流水增量计入变体和地点汇总，可售量跌破阈值时只报告一次
+ */
+class InventoryProjectionsTests {
+
+	private final InventoryProjections projections = new InventoryProjections(5);
+
+	@Test
+	void movementsAccumulateByVariantAndLocation() {
+		projections.apply(1L, 100L, 20, 0, 0);
+		projections.apply(1L, 200L, 10, 3, 4);
+		projections.apply(2L, 100L, 8, 0, 0);
+
+		InventoryTotalsDTO variant = projections.variant(1L).orElseThrow();
+		assertEquals(30, variant.getStock_level());
+		assertEquals(3, variant.getReserved_quantity());
+		assertEquals(4, variant.getIncoming_quantity());
+		assertEquals(27, variant.getAvailable());
+
+		InventoryTotalsDTO location = projections.location(100L).orElseThrow();
+		assertEquals(28, location.getStock_level());
+		assertEquals(28, location.getAvailable());
+		assertTrue(projections.variant(3L).isEmpty());
+	}
+
+	@Test
+	void itemWithoutVariantOnlyCountsTowardsItsLocation() {
+		assertFalse(projections.apply(null, 100L, -2, 0, 0));
+
+		assertEquals(-2, projections.location(100L).orElseThrow().getStock_level());
+		assertTrue(projections.lowStock().isEmpty());
+	}
+
+	@Test
+	void crossingTheThresholdIsReportedOnceUntilRestocked() {
+		assertFalse(projections.apply(1L, 100L, 10, 0, 0));
+		assertTrue(projections.apply(1L, 100L, 0, 6, 0));
+		// 已在低库存集合中，继续下降不再报告
+		assertFalse(projections.apply(1L, 100L, -1, 0, 0));
+		assertEquals(List.of(1L), projections.lowStock().stream().map(InventoryTotalsDTO::getVariant_id).toList());
+
+		// 补货后移出，再次跌破时重新报告
+		assertFalse(projections.apply(1L, 100L, 10, 0, 0));
+		assertTrue(projections.lowStock().isEmpty());
+		assertTrue(projections.apply(1L, 100L, 0, 10, 0));
+	}
+
+	@Test
+	void lowStockIsOrderedByAvailability() {
+		projections.apply(1L, 100L, 4, 0, 0);
+		projections.apply(2L, 100L, 1, 0, 0);
+		projections.apply(3L, 100L, 4, 0, 0);
+		projections.apply(4L, 100L, 9, 0, 0);
+
+		assertEquals(List.of(2L, 1L, 3L),
+				projections.lowStock().stream().map(InventoryTotalsDTO::getVariant_id).toList());
+	}
+}
@@ -0,0 +1,77 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.repository.ProductRepository;
+import com.qvtu.repository.ProductRepositoryCustom.SearchSource;
+import com.qvtu.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 搜索词转换为带引号的前缀tsquery，索引文档与查询使用同一分词规则
+ */
+class ProductSearchServiceImplTests {
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+	private final ProductService productService = mock(ProductService.class);
+	private final ProductSearchServiceImpl service = new ProductSearchServiceImpl(productRepository, productService);
+
+	@Test
+	void queryTermsAreQuotedPrefixMatches() {
+		service.autocomplete("Men's T-Shirt", 10);
+
+		// 标点不会进入tsquery，每个词都按前缀匹配
+		verify(productRepository).searchProductIds("'men':* & 's':* & 't':* & 'shirt':*", 0, 10);
+	}
+
+	@Test
+	void cjkQueryIsSplitIntoBigrams() {
+		service.autocomplete("运动鞋 Nike", 5);
+
+		verify(productRepository).searchProductIds("'运动':* & '动鞋':* & 'nike':*", 0, 5);
+	}
+
+	@Test
+	void operatorOnlyQueryDoesNotReachTheDatabase() {
+		Page<?> page = service.search("'& | ! :*", PageRequest.of(0, 20));
+
+		assertTrue(page.isEmpty());
+		verify(productRepository, never()).searchProductIds(anyString(), anyLong(), anyInt());
+	}
+
+	@Test
+	void shortFirstPageIsCountedWithoutCountQuery() {
+		when(productRepository.searchProductIds(anyString(), eq(0L), eq(20))).thenReturn(List.of(3L, 1L));
+
+		Page<?> page = service.search("shirt", PageRequest.of(0, 20));
+
+		assertEquals(2, page.getTotalElements());
+		verify(productRepository, never()).countSearchResults(anyString());
+	}
+
+	@Test
+	void documentsAreWeightedByField() {
+		when(productRepository.findSearchSources(List.of(1L)))
+				.thenReturn(List.of(new SearchSource(1L, "Blue Shirt", "blue-shirt", "Soft cotton", "Size M")));
+
+		service.index(List.of(1L));
+
+		verify(productRepository).saveSearchDocuments(
+				Map.of(1L, "'blue':1A 'shirt':2A 'size':3B 'm':4B 'soft':5D 'cotton':6D"));
+		verify(productRepository).deleteSearchDocuments(List.of());
+	}
+}
@@ -0,0 +1,128 @@
+package com.qvtu.service.impl;
+
+import com.qvtu.dto.auth.AuthResponse;
+import com.qvtu.exception.AuthenticationException;
+import com.qvtu.model.RefreshToken;
+import com.qvtu.model.User;
+import com.qvtu.repository.RefreshTokenRepository;
+import com.qvtu.repository.RevokedTokenRepository;
+import com.qvtu.repository.TokenVersionChangeRepository;
+import com.qvtu.security.TokenRevocationList;
+import com.qvtu.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 刷新令牌轮换：同一家族内签发新令牌，旧令牌重放时整族撤销
+ */
+class RefreshTokenServiceImplTests {
+
+	private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+	private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+	private final Map<String, RefreshToken> tokensByHash = new HashMap<>();
+	private JwtUtil jwtUtil;
+	private TokenRevocationList tokenRevocationList;
+	private RefreshTokenServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", "test_secret_key_for_refresh_token_service_tests_0123456789_abcdefghijk");
+		ReflectionTestUtils.setField(jwtUtil, "expiration", 900L);
+		ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+		tokenRevocationList = new TokenRevocationList(revokedTokenRepository);
+		service = new RefreshTokenServiceImpl(refreshTokenRepository, revokedTokenRepository,
+				mock(TokenVersionChangeRepository.class), tokenRevocationList, jwtUtil);
+		ReflectionTestUtils.setField(service, "refreshExpiration", 3600L);
+
+		// 仓库以摘要为键保存在内存中
+		when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+			RefreshToken token = invocation.getArgument(0);
+			tokensByHash.put(token.getTokenHash(), token);
+			return token;
+		});
+		when(refreshTokenRepository.findByTokenHash(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(tokensByHash.get(invocation.<String>getArgument(0))));
+	}
+
+	@Test
+	void refreshRotatesWithinTheSameFamily() {
+		String first = service.issueRefreshToken(user(0L));
+
+		AuthResponse response = service.refresh(first);
+
+		assertNotNull(response.getToken());
+		assertNotEquals(first, response.getRefreshToken());
+		assertEquals(2, tokensByHash.size());
+		assertEquals(1, tokensByHash.values().stream().map(RefreshToken::getFamilyId).distinct().count());
+		assertEquals(1, tokensByHash.values().stream().filter(token -> token.getRevokedAt() != null).count());
+		verify(refreshTokenRepository, never()).revokeFamily(anyString(), any());
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesTheWholeFamily() {
+		String first = service.issueRefreshToken(user(0L));
+		service.refresh(first);
+		String familyId = tokensByHash.values().iterator().next().getFamilyId();
+
+		// 已轮换的令牌再次出现，视为泄露
+		assertThrows(AuthenticationException.class, () -> service.refresh(first));
+		verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+	}
+
+	@Test
+	void refreshTokenIssuedBeforeVersionBumpIsRejected() {
+		User user = user(0L);
+		String token = service.issueRefreshToken(user);
+		user.setTokenVersion(1L);
+
+		assertThrows(AuthenticationException.class, () -> service.refresh(token));
+		assertEquals(1, tokensByHash.size());
+		assertNotNull(tokensByHash.values().iterator().next().getRevokedAt());
+	}
+
+	@Test
+	void logoutRevokesAccessTokenAndRefreshFamily() {
+		User user = user(0L);
+		String accessToken = jwtUtil.generateToken(user);
+		String refreshToken = service.issueRefreshToken(user);
+		String jti = jwtUtil.parseToken(accessToken).getId();
+		assertFalse(tokenRevocationList.isRevoked(jti));
+
+		service.logout(accessToken, refreshToken);
+
+		assertTrue(tokenRevocationList.isRevoked(jti));
+		verify(revokedTokenRepository).save(any());
+		verify(refreshTokenRepository).revokeFamily(
+				eq(tokensByHash.values().iterator().next().getFamilyId()), any());
+	}
+
+	private static User user(Long tokenVersion) {
+		User user = new User();
+		user.setId(1L);
+		user.setEmail("customer@example.com");
+		user.setRoles(Set.of("ROLE_USER"));
+		user.setTokenVersion(tokenVersion);
+		return user;
+	}
+}
@@ -0,0 +1,81 @@
+package com.qvtu.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间轮：刻度100ms、8个槽，一圈800ms
+ */
+class ReservationTimingWheelTests {
+
+	private static final long TICK = 100;
+	private static final int WHEEL_SIZE = 8;
+
+	@Test
+	void entriesInTheSameSlotAreReleasedInTheirOwnRound() {
+		ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, WHEEL_SIZE, 100, 0);
+		wheel.schedule(1L, 250);
+		// 与1落在同一个槽，但要等下一圈
+		wheel.schedule(2L, 250 + TICK * WHEEL_SIZE);
+
+		assertEquals(List.of(1L), wheel.advance(300));
+		assertEquals(1, wheel.size());
+		assertEquals(List.of(), wheel.advance(900));
+		assertEquals(List.of(2L), wheel.advance(1100));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void entryLaterInTheCurrentTickIsReleasedOnTheNextAdvance() {
+		ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, WHEEL_SIZE, 100, 0);
+		wheel.schedule(1L, 250);
+
+		assertEquals(List.of(), wheel.advance(220));
+		assertEquals(List.of(1L), wheel.advance(260));
+	}
+
+	@Test
+	void overdueEntryIsReleasedWithoutWaitingARound() {
+		ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, WHEEL_SIZE, 100, 0);
+		assertEquals(List.of(), wheel.advance(520));
+
+		wheel.schedule(1L, 100);
+		wheel.schedule(2L, 510);
+
+		assertEquals(List.of(1L, 2L), wheel.advance(530));
+	}
+
+	@Test
+	void advanceFallingBehindSeveralRoundsScansEachSlotOnce() {
+		ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, WHEEL_SIZE, 100, 0);
+		wheel.schedule(1L, 150);
+		wheel.schedule(2L, 750);
+		wheel.schedule(3L, 1650);
+		wheel.schedule(4L, 9_000);
+
+		List<Long> due = wheel.advance(5_000);
+
+		assertEquals(3, due.size());
+		assertTrue(due.containsAll(List.of(1L, 2L, 3L)));
+		assertEquals(List.of(), wheel.advance(8_950));
+		assertEquals(List.of(4L), wheel.advance(9_000));
+	}
+
+	@Test
+	void scheduleBeyondCapacityIsRefused() {
+		ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, WHEEL_SIZE, 2, 0);
+
+		assertTrue(wheel.schedule(1L, 100));
+		assertTrue(wheel.schedule(2L, 200));
+		assertFalse(wheel.schedule(3L, 300));
+		assertEquals(2, wheel.size());
+
+		wheel.advance(150);
+		assertTrue(wheel.schedule(3L, 300));
+	}
+}
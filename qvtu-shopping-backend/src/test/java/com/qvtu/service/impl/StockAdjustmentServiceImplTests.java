@@ -0,0 +1,141 @@
+package com.qvtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qvtu.dto.StockAdjustmentResult;
+import com.qvtu.repository.InventoryItemRepository;
+import com.qvtu.repository.InventoryLevelRepository;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockDelta;
+import com.qvtu.repository.InventoryLevelRepositoryCustom.StockLevel;
+import com.qvtu.service.InventoryService;
+import com.qvtu.service.StockAdjustmentService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量库存调整：同一库存级别的行合并后校验，拒绝的库存级别整组报告，批次失败时逐行报告
+ */
+class StockAdjustmentServiceImplTests {
+
+	private static final String HEADER = "sku,location_id,delta\n";
+
+	private final InventoryItemRepository inventoryItemRepository = mock(InventoryItemRepository.class);
+	private final InventoryLevelRepository inventoryLevelRepository = mock(InventoryLevelRepository.class);
+	private final InventoryService inventoryService = mock(InventoryService.class);
+	private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+	@BeforeEach
+	void setUp() {
+		Map<String, Long> skus = Map.of("A", 10L, "B", 20L, "F", 30L);
+		when(inventoryItemRepository.findIdsBySkuIn(anyCollection())).thenAnswer(invocation ->
+				invocation.<Set<String>>getArgument(0).stream()
+						.filter(skus::containsKey)
+						.map(sku -> skuId(sku, skus.get(sku)))
+						.toList());
+		when(inventoryLevelRepository.lockStockLevels(anyCollection())).thenReturn(List.of(
+				new StockLevel(10L, 1L, 10, 4, false),
+				new StockLevel(10L, 2L, 5, 0, false),
+				new StockLevel(20L, 1L, 3, 3, false),
+				new StockLevel(30L, 1L, 100, 0, true)));
+		when(inventoryLevelRepository.adjustStockLevels(anyList()))
+				.thenAnswer(invocation -> invocation.<List<StockDelta>>getArgument(0).size());
+		doAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+	}
+
+	@Test
+	void linesForTheSameLevelAreMergedAndRejectedTogether() throws Exception {
+		StockAdjustmentResult result = adjust(1000, HEADER
+				+ "A,1,5\n"
+				+ "A,1,-8\n"
+				+ "B,1,-2\n"
+				+ "B,1,1\n"
+				+ "A,2,3\n"
+				+ "X,1,1\n"
+				+ "F,1,1\n"
+				+ "A,3,1\n"
+				+ "A,1,abc\n");
+
+		assertEquals(9, result.getTotal());
+		assertEquals(3, result.getApplied());
+		assertEquals(6, result.getFailed());
+		// 10在手、4已预留，净扣减3后仍有7，允许；按加锁顺序一条语句更新
+		verify(inventoryLevelRepository).adjustStockLevels(List.of(
+				new StockDelta(10L, 1L, -3), new StockDelta(10L, 2L, 3)));
+		verify(inventoryService).refreshAvailability(Set.of(10L));
+
+		Map<Long, String> errors = result.getErrors().stream()
+				.collect(Collectors.toMap(StockAdjustmentResult.RowError::getRow, StockAdjustmentResult.RowError::getMessage));
+		assertEquals(Set.of(3L, 4L, 6L, 7L, 8L, 9L), errors.keySet());
+		// 3在手、3已预留，净扣减1会低于已预留数量，两行一起拒绝
+		assertTrue(errors.get(3L).startsWith("Insufficient unreserved stock"));
+		assertEquals(errors.get(3L), errors.get(4L));
+		assertEquals("Unknown SKU", errors.get(6L));
+		assertEquals("Inventory item 30 is on flash sale", errors.get(7L));
+		assertEquals("No inventory level for item 10 at location 3", errors.get(8L));
+		assertTrue(errors.get(9L).startsWith("Malformed row"));
+	}
+
+	@Test
+	void failedBatchReportsEveryLineAndLaterBatchesContinue() throws Exception {
+		when(inventoryLevelRepository.adjustStockLevels(anyList()))
+				.thenReturn(0)
+				.thenAnswer(invocation -> invocation.<List<StockDelta>>getArgument(0).size());
+
+		StockAdjustmentResult result = adjust(2, HEADER
+				+ "A,1,1\n"
+				+ "A,2,1\n"
+				+ "A,2,2\n");
+
+		assertEquals(3, result.getTotal());
+		assertEquals(1, result.getApplied());
+		assertEquals(2, result.getFailed());
+		assertEquals(List.of(1L, 2L), result.getErrors().stream().map(StockAdjustmentResult.RowError::getRow).toList());
+		result.getErrors().forEach(error -> assertEquals("Inventory levels changed while locked", error.getMessage()));
+		verify(inventoryLevelRepository).adjustStockLevels(List.of(new StockDelta(10L, 2L, 2)));
+	}
+
+	private StockAdjustmentResult adjust(int batchSize, String csv) throws Exception {
+		StockAdjustmentServiceImpl service = new StockAdjustmentServiceImpl(inventoryItemRepository,
+				inventoryLevelRepository, inventoryService, transactionTemplate,
+				Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), batchSize, 100);
+		return service.adjust(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				StockAdjustmentService.Format.CSV);
+	}
+
+	private static InventoryItemRepository.SkuId skuId(String sku, Long id) {
+		return new InventoryItemRepository.SkuId() {
+			@Override
+			public String getSku() {
+				return sku;
+			}
+
+			@Override
+			public Long getId() {
+				return id;
+			}
+		};
+	}
+}